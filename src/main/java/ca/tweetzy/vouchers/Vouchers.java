@@ -28,21 +28,38 @@ import ca.tweetzy.feather.database.DatabaseConnector;
 import ca.tweetzy.feather.database.SQLiteConnector;
 import ca.tweetzy.feather.gui.GuiManager;
 import ca.tweetzy.feather.utils.Common;
+import ca.tweetzy.vouchers.api.VouchersAPI;
 import ca.tweetzy.vouchers.api.voucher.Voucher;
 import ca.tweetzy.vouchers.commands.VouchersCommand;
 import ca.tweetzy.vouchers.database.DataManager;
+import ca.tweetzy.vouchers.database.PooledMySQLConnector;
 import ca.tweetzy.vouchers.database.migrations._1_InitialMigration;
+import ca.tweetzy.vouchers.database.migrations._2_RedeemUserIndexMigration;
+import ca.tweetzy.vouchers.database.migrations._3_CooldownMigration;
+import ca.tweetzy.vouchers.database.migrations._4_NormalizedRewardMigration;
+import ca.tweetzy.vouchers.database.migrations._5_PendingRewardMigration;
+import ca.tweetzy.vouchers.database.migrations._6_RedeemCompositeIndexMigration;
+import ca.tweetzy.vouchers.database.migrations._7_RedeemRollupMigration;
+import ca.tweetzy.vouchers.impl.VouchersAPIImplementation;
+import ca.tweetzy.vouchers.model.BroadcastDispatcher;
+import ca.tweetzy.vouchers.model.PlayerNameCache;
+import ca.tweetzy.vouchers.model.RedeemRetentionJob;
+import ca.tweetzy.vouchers.model.RewardExecutor;
+import ca.tweetzy.vouchers.model.RewardScheduler;
 import ca.tweetzy.vouchers.listeners.BlockListeners;
+import ca.tweetzy.vouchers.listeners.PlayerListeners;
 import ca.tweetzy.vouchers.listeners.VoucherListeners;
 import ca.tweetzy.vouchers.model.manager.CooldownManager;
 import ca.tweetzy.vouchers.model.manager.RedeemManager;
 import ca.tweetzy.vouchers.model.manager.VoucherManager;
+import ca.tweetzy.vouchers.model.metrics.RedeemMetrics;
 import ca.tweetzy.vouchers.settings.Locale;
 import ca.tweetzy.vouchers.settings.Settings;
 import co.aikar.commands.PaperCommandManager;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.List;
 
 
@@ -56,6 +73,12 @@ public final class Vouchers extends FeatherPlugin {
 	private final VoucherManager voucherManager = new VoucherManager();
 	private final RedeemManager redeemManager = new RedeemManager();
 	private final CooldownManager cooldownManager = new CooldownManager();
+	private final RedeemMetrics redeemMetrics = new RedeemMetrics();
+	private final BroadcastDispatcher broadcastDispatcher = new BroadcastDispatcher();
+	private final RewardExecutor rewardExecutor = new RewardExecutor();
+	private final RewardScheduler rewardScheduler = new RewardScheduler();
+	private final PlayerNameCache playerNameCache = new PlayerNameCache();
+	private final VouchersAPI api = new VouchersAPIImplementation();
 
 
 	@SuppressWarnings("FieldCanBeLocal")
@@ -76,21 +99,53 @@ public final class Vouchers extends FeatherPlugin {
 		}
 
 		// Set up the database if enabled
-		this.databaseConnector = new SQLiteConnector(this);
+		this.databaseConnector = Settings.DATABASE_TYPE.getString().equalsIgnoreCase("mysql") ? new PooledMySQLConnector(this) : new SQLiteConnector(this);
 		this.dataManager = new DataManager(this.databaseConnector, this);
 
 		final DataMigrationManager dataMigrationManager = new DataMigrationManager(this.databaseConnector, this.dataManager,
-				new _1_InitialMigration()
+				new _1_InitialMigration(),
+				new _2_RedeemUserIndexMigration(),
+				new _3_CooldownMigration(),
+				new _4_NormalizedRewardMigration(),
+				new _5_PendingRewardMigration(),
+				new _6_RedeemCompositeIndexMigration(),
+				new _7_RedeemRollupMigration()
 		);
 
 		// run migrations for tables
 		dataMigrationManager.runMigrations();
+		this.dataManager.prepare();
 
 		getServer().getPluginManager().registerEvents(new VoucherListeners(), this);
 		getServer().getPluginManager().registerEvents(new BlockListeners(), this);
+		getServer().getPluginManager().registerEvents(new PlayerListeners(), this);
 
 		this.voucherManager.load();
+		this.dataManager.reencodeLegacyItems(null);
 		this.redeemManager.load();
+		this.cooldownManager.load();
+		this.rewardScheduler.load();
+
+		final long redeemFlushInterval = Math.max(Settings.REDEEM_WRITE_FLUSH_INTERVAL.getInt(), 1);
+		getServer().getScheduler().runTaskTimer(this, this.dataManager::flushVoucherRedeems, redeemFlushInterval, redeemFlushInterval);
+		getServer().getScheduler().runTaskTimerAsynchronously(this, this.cooldownManager::tick, 20L, 20L);
+
+		final long cooldownSaveInterval = Math.max(Settings.COOLDOWN_SAVE_INTERVAL.getInt(), 1) * 20L;
+		getServer().getScheduler().runTaskTimerAsynchronously(this, () -> this.dataManager.saveCooldowns(this.cooldownManager.snapshot(), null), cooldownSaveInterval, cooldownSaveInterval);
+
+		final long retentionInterval = Math.max(Settings.REDEEM_RETENTION_INTERVAL.getInt(), 1) * 60L * 20L;
+		getServer().getScheduler().runTaskTimerAsynchronously(this, new RedeemRetentionJob(new File(getDataFolder(), "archive")), 20L * 60L, retentionInterval);
+
+		getServer().getScheduler().runTaskTimer(this, this.rewardExecutor::tick, 1L, 1L);
+		getServer().getScheduler().runTaskTimer(this, this.rewardScheduler::tick, 1L, 1L);
+
+		// broadcasts are merged from their own task so redeems don't pay for it, only the sends go back to the main thread
+		final long broadcastWindow = Math.max(Settings.BROADCAST_MERGE_WINDOW.getInt(), 1);
+		getServer().getScheduler().runTaskTimerAsynchronously(this, () -> this.broadcastDispatcher.flush(false), broadcastWindow, broadcastWindow);
+
+		final long metricsDumpInterval = Settings.METRICS_DUMP_INTERVAL.getInt() * 20L;
+		if (metricsDumpInterval > 0)
+			getServer().getScheduler().runTaskTimerAsynchronously(this, this::dumpMetrics, metricsDumpInterval, metricsDumpInterval);
 
 		this.guiManager.init();
 
@@ -111,9 +166,24 @@ public final class Vouchers extends FeatherPlugin {
 
 	@Override
 	protected void onSleep() {
+		this.broadcastDispatcher.flush(true);
+		this.rewardExecutor.drain();
+
+		// queued before the shutdown so the data manager drains it
+		this.dataManager.flushVoucherRedeems();
+		this.dataManager.saveCooldowns(this.cooldownManager.snapshot(), null);
+		this.dataManager.close();
 		shutdownDataManager(this.dataManager);
 	}
 
+	private void dumpMetrics() {
+		try {
+			this.redeemMetrics.dump(new File(getDataFolder(), Settings.METRICS_DUMP_FILE.getString()));
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
 	@NotNull
 	@Override
 	public List<TweetzyYamlConfig> getConfigs() {
@@ -151,6 +221,31 @@ public final class Vouchers extends FeatherPlugin {
 		return getInstance().cooldownManager;
 	}
 
+	public static RedeemMetrics getRedeemMetrics() {
+		return getInstance().redeemMetrics;
+	}
+
+	public static BroadcastDispatcher getBroadcastDispatcher() {
+		return getInstance().broadcastDispatcher;
+	}
+
+	public static RewardExecutor getRewardExecutor() {
+		return getInstance().rewardExecutor;
+	}
+
+	public static RewardScheduler getRewardScheduler() {
+		return getInstance().rewardScheduler;
+	}
+
+	public static PlayerNameCache getPlayerNameCache() {
+		return getInstance().playerNameCache;
+	}
+
+	// api
+	public static VouchersAPI getAPI() {
+		return getInstance().api;
+	}
+
 	// gui manager
 	public static GuiManager getGuiManager() {
 		return getInstance().guiManager;
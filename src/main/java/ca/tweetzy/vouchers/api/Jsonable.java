@@ -18,7 +18,25 @@
 
 package ca.tweetzy.vouchers.api;
 
+import com.google.gson.stream.JsonWriter;
+import lombok.SneakyThrows;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
 public interface Jsonable {
 
-	String toJsonString();
+	/**
+	 * Writes this object straight to the writer without building a tree first
+	 *
+	 * @param writer is the writer to write the object to
+	 */
+	void writeTo(JsonWriter writer) throws IOException;
+
+	@SneakyThrows
+	default String toJsonString() {
+		final StringWriter out = new StringWriter();
+		writeTo(new JsonWriter(out));
+		return out.toString();
+	}
 }
@@ -18,5 +18,14 @@
 
 package ca.tweetzy.vouchers.api;
 
+import ca.tweetzy.vouchers.api.metrics.RedeemMetricsSnapshot;
+
 public interface VouchersAPI {
+
+	/**
+	 * Used to read the redeem counters and stage timings collected since startup
+	 *
+	 * @return a copy of the metrics at the time of the call
+	 */
+	RedeemMetricsSnapshot getRedeemMetrics();
 }
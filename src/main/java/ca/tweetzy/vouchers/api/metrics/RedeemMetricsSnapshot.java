@@ -0,0 +1,35 @@
+/*
+ * Vouchers
+ * Copyright 2022 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.vouchers.api.metrics;
+
+import java.util.Map;
+
+/**
+ * A point in time copy of the redeem metrics, all timings are in nanoseconds
+ *
+ * @param redeems          is how many redeems completed
+ * @param denials          is how many redeems were refused, by reason
+ * @param databaseFailures is how many database writes failed
+ * @param timings          is the latency of each stage of the redeem pipeline
+ */
+public record RedeemMetricsSnapshot(long redeems, Map<DenialReason, Long> denials, long databaseFailures, Map<RedeemStage, Timing> timings) {
+
+	public record Timing(long count, long mean, long p50, long p95, long p99, long max) {
+	}
+}
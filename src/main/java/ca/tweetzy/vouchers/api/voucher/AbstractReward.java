@@ -18,15 +18,39 @@
 
 package ca.tweetzy.vouchers.api.voucher;
 
-import lombok.AllArgsConstructor;
+import java.util.UUID;
 
-@AllArgsConstructor
 public abstract class AbstractReward implements Reward {
 
+	private final UUID id;
 	private RewardType rewardType;
 	private double chance;
 	private int delay;
 
+	// set by the setters, cleared once the row has been saved
+	private boolean dirty;
+
+	public AbstractReward(UUID id, RewardType rewardType, double chance, int delay) {
+		this.id = id;
+		this.rewardType = rewardType;
+		this.chance = chance;
+		this.delay = delay;
+	}
+
+	/**
+	 * @return true if the reward was edited since the last call, meaning its row has to be saved
+	 */
+	public boolean pollDirty() {
+		final boolean wasDirty = this.dirty;
+		this.dirty = false;
+		return wasDirty;
+	}
+
+	@Override
+	public UUID getId() {
+		return this.id;
+	}
+
 	@Override
 	public int getDelay() {
 		return this.delay;
@@ -45,10 +69,12 @@ public abstract class AbstractReward implements Reward {
 	@Override
 	public void setDelay(int delay) {
 		this.delay = delay;
+		this.dirty = true;
 	}
 
 	@Override
 	public void setChance(double chance) {
 		this.chance = chance;
+		this.dirty = true;
 	}
 }
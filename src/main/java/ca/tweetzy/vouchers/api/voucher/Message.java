@@ -21,8 +21,12 @@ package ca.tweetzy.vouchers.api.voucher;
 import ca.tweetzy.vouchers.api.Jsonable;
 import org.bukkit.entity.Player;
 
+import java.util.UUID;
+
 public interface Message extends Jsonable {
 
+	UUID getId();
+
 	MessageType getMessageType();
 
 	String getMessage();
@@ -44,4 +48,13 @@ public interface Message extends Jsonable {
 	void send(Player player, Voucher voucher);
 
 	String getColouredAndReplaced(Player player, Voucher voucher);
+
+	/**
+	 * Renders the message for a player name that may not belong to a single player
+	 *
+	 * @param playerName is what %player% is replaced with
+	 * @param voucher    is the voucher being redeemed
+	 * @return the coloured message
+	 */
+	String getColouredAndReplaced(String playerName, Voucher voucher);
 }
@@ -21,8 +21,12 @@ package ca.tweetzy.vouchers.api.voucher;
 import ca.tweetzy.vouchers.api.Jsonable;
 import org.bukkit.entity.Player;
 
+import java.util.UUID;
+
 public interface Reward extends Jsonable {
 
+	UUID getId();
+
 	RewardType getType();
 
 	int getDelay();
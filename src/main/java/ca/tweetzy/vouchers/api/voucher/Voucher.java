@@ -18,12 +18,14 @@
 
 package ca.tweetzy.vouchers.api.voucher;
 
+import ca.tweetzy.vouchers.api.Jsonable;
 import ca.tweetzy.vouchers.api.Synchronize;
 import org.bukkit.inventory.ItemStack;
 
 import java.util.List;
+import java.util.Random;
 
-public interface Voucher extends Synchronize {
+public interface Voucher extends Synchronize, Jsonable {
 
 	String getId();
 
@@ -47,6 +49,26 @@ public interface Voucher extends Synchronize {
 
 	void setDescription(List<String> description);
 
+	void addReward(Reward reward);
+
+	void removeReward(Reward reward);
+
+	void swapRewards(int first, int second);
+
+	void addMessage(Message message);
+
+	void removeMessage(Message message);
+
+	void swapMessages(int first, int second);
+
+	/**
+	 * Picks a reward weighted by its chance
+	 *
+	 * @param random is the source of randomness
+	 * @return the picked reward, or null if no reward has a chance above 0
+	 */
+	Reward pickRandomReward(Random random);
+
 	String getRewardJson();
 
 	ItemStack buildItem();
@@ -20,14 +20,23 @@ package ca.tweetzy.vouchers.commands;
 
 import ca.tweetzy.feather.utils.Common;
 import ca.tweetzy.vouchers.Vouchers;
+import ca.tweetzy.vouchers.api.metrics.RedeemMetricsSnapshot;
 import ca.tweetzy.vouchers.api.voucher.Voucher;
 import ca.tweetzy.vouchers.gui.GUIVouchersAdmin;
 import ca.tweetzy.vouchers.impl.importer.VouchersImporter;
+import ca.tweetzy.vouchers.model.VoucherGiveTask;
+import ca.tweetzy.vouchers.settings.Locale;
 import co.aikar.commands.BaseCommand;
 import co.aikar.commands.annotation.*;
 import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
 @CommandAlias("vouchers")
 public class VouchersCommand extends BaseCommand {
 
@@ -58,15 +67,56 @@ public class VouchersCommand extends BaseCommand {
 		final int amount = Integer.parseInt(args[2]);
 		final Voucher voucherFound = Vouchers.getVoucherManager().find(args[1]);
 
-		if (isGivingAll)
-			for (Player player : Bukkit.getOnlinePlayers()) {
-				for (int i = 0; i < amount; i++)
-					player.getInventory().addItem(voucherFound.buildItem());
-			}
-		else {
-			for (int i = 0; i < amount; i++)
-				target.getInventory().addItem(voucherFound.buildItem());
+		if (voucherFound == null) {
+			Common.tell(sender, Locale.VOUCHER_NOT_FOUND.getString());
+			return;
+		}
+
+		if (isGivingAll) {
+			// spread over ticks, the players are picked now so late joiners aren't included
+			final List<UUID> targets = Bukkit.getOnlinePlayers().stream().map(Player::getUniqueId).collect(Collectors.toList());
+			new VoucherGiveTask(sender, voucherFound, amount, targets).start();
+			return;
 		}
+
+		if (target == null) {
+			Common.tell(sender, Locale.PLAYER_OFFLINE.getString());
+			return;
+		}
+
+		VoucherGiveTask.give(target, voucherFound.buildItem(), amount);
+	}
+
+	@Subcommand("stats")
+	@CommandPermission("vouchers.command.stats")
+	public static void onStats(CommandSender sender, String[] args) {
+		final RedeemMetricsSnapshot metrics = Vouchers.getAPI().getRedeemMetrics();
+
+		Common.tell(sender, "&eRedeems: &f" + metrics.redeems() + " &7| &eDatabase failures: &f" + metrics.databaseFailures());
+		Common.tell(sender, "&eDenied: &f" + metrics.denials().entrySet().stream()
+				.map(entry -> entry.getKey().name().toLowerCase() + " " + entry.getValue())
+				.collect(Collectors.joining(", ")));
+
+		metrics.timings().forEach((stage, timing) -> Common.tell(sender, String.format("&e%s&7: &f%d &7samples, p50 &f%.2fms&7, p99 &f%.2fms&7, max &f%.2fms",
+				stage.name().toLowerCase(),
+				timing.count(),
+				timing.p50() / 1_000_000D,
+				timing.p99() / 1_000_000D,
+				timing.max() / 1_000_000D
+		)));
+
+		// the totals come back on a storage thread
+		Vouchers.getDataManager().getRedeemTotalsByVoucher((error, totals) -> Bukkit.getScheduler().runTask(Vouchers.getInstance(), () -> {
+			if (error != null) {
+				Common.tell(sender, "&cCould not load the all time totals: " + error.getMessage());
+				return;
+			}
+
+			Common.tell(sender, "&eAll time: &f" + totals.entrySet().stream()
+					.sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+					.map(entry -> entry.getKey() + " " + entry.getValue())
+					.collect(Collectors.joining(", ")));
+		}));
 	}
 
 	@Subcommand("help")
@@ -75,6 +125,7 @@ public class VouchersCommand extends BaseCommand {
 		Common.tell(sender, "/vouchers usage");
 		Common.tell(sender, "&l/vouchers give <player/*> <voucher> [count] &r- gives a player the specified number of vouchers or * for all players");
 		Common.tell(sender, "&l/vouchers import &r- Imports V2 vouchers in to V3");
+		Common.tell(sender, "&l/vouchers stats &r- shows redeem counts and how long each step of a redeem takes");
 		Common.tell(sender, "&l/vouchers &r- opens the voucher editing menu");
 		Common.tell(sender, "&l/vouchers help&r - opens this menu");
 	}
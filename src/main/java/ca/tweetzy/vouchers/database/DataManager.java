@@ -21,96 +21,193 @@ package ca.tweetzy.vouchers.database;
 import ca.tweetzy.feather.database.Callback;
 import ca.tweetzy.feather.database.DataManagerAbstract;
 import ca.tweetzy.feather.database.DatabaseConnector;
-import ca.tweetzy.vouchers.api.voucher.Redeem;
-import ca.tweetzy.vouchers.api.voucher.Reward;
-import ca.tweetzy.vouchers.api.voucher.RewardMode;
-import ca.tweetzy.vouchers.api.voucher.Voucher;
+import ca.tweetzy.vouchers.Vouchers;
+import ca.tweetzy.vouchers.api.metrics.RedeemStage;
+import ca.tweetzy.vouchers.api.voucher.*;
 import ca.tweetzy.vouchers.impl.ActiveVoucher;
+import ca.tweetzy.vouchers.impl.VoucherMessage;
 import ca.tweetzy.vouchers.impl.VoucherRedeem;
 import ca.tweetzy.vouchers.impl.VoucherSettings;
+import ca.tweetzy.vouchers.impl.reward.CommandReward;
+import ca.tweetzy.vouchers.impl.reward.ItemReward;
 import ca.tweetzy.vouchers.model.ItemEncoder;
+import ca.tweetzy.vouchers.model.PendingReward;
+import ca.tweetzy.vouchers.model.RedeemArchive;
 import ca.tweetzy.vouchers.model.RewardFactory;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonParser;
+import ca.tweetzy.vouchers.settings.Settings;
 import lombok.NonNull;
+import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.UUID;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
 
 public final class DataManager extends DataManagerAbstract {
 
+	// redeems waiting to be written, flushed in batches by size or by the flush timer
+	private final Deque<Redeem> pendingRedeems = new ConcurrentLinkedDeque<>();
+	private final AtomicInteger pendingRedeemCount = new AtomicInteger();
+	private final AtomicBoolean redeemFlushQueued = new AtomicBoolean();
+	// how many times in a row the batch at the head of the queue failed, only touched on the write thread
+	private int failedRedeemWrites;
+	// after a failed write nothing is retried before this time, so an outage doesn't turn into a retry storm
+	private volatile long nextRedeemWriteAt;
+
+	// every write goes through one thread so sqlite never sees two writers fighting over its lock
+	private final ExecutorService writeExecutor;
+	private final ExecutorService readExecutor;
+
+	// only used from the write thread
+	private final StatementCache statementCache;
+	// sqlite only, completed by prepare() once wal mode is on, reads wait for it instead of using the write connection
+	private final CompletableFuture<ReadConnectionPool> readPool = new CompletableFuture<>();
+	private volatile boolean prepared;
+
+	private static final int MAX_REDEEM_WRITE_ATTEMPTS = 8;
+	private static final long REDEEM_WRITE_BACKOFF_MILLIS = 1000L;
+	private static final long MAX_REDEEM_WRITE_BACKOFF_MILLIS = 60_000L;
+
 	public DataManager(DatabaseConnector databaseConnector, Plugin plugin) {
 		super(databaseConnector, plugin);
+
+		final int readThreads = Math.max(Settings.DATABASE_READ_CONNECTIONS.getInt(), 1);
+		this.writeExecutor = Executors.newSingleThreadExecutor(threadFactory(plugin.getName() + "-storage-writer"));
+		this.readExecutor = Executors.newFixedThreadPool(readThreads, threadFactory(plugin.getName() + "-storage-reader"));
+
+		// the mysql driver already caches statements per pooled connection
+		this.statementCache = databaseConnector instanceof PooledMySQLConnector ? null : new StatementCache();
+	}
+
+	/**
+	 * Switches sqlite over to wal mode and opens the read connections, should be called once the migrations are done
+	 */
+	public void prepare() {
+		if (this.statementCache == null) return;
+
+		this.prepared = true;
+		this.writeExecutor.execute(() -> {
+			this.databaseConnector.connect(connection -> {
+				try (Statement statement = connection.createStatement()) {
+					statement.execute("PRAGMA journal_mode = WAL");
+					statement.execute("PRAGMA synchronous = NORMAL");
+				}
+
+				this.readPool.complete(new ReadConnectionPool(connection.getMetaData().getURL(), Settings.DATABASE_READ_CONNECTIONS.getInt()));
+			});
+
+			// connect logs its own errors, waiting reads shouldn't hang on a pool that will never open
+			this.readPool.completeExceptionally(new IllegalStateException("Could not open the read connections"));
+		});
+	}
+
+	/**
+	 * Runs everything still queued and closes the cached statements and read connections
+	 */
+	public void close() {
+		this.readExecutor.shutdown();
+		this.writeExecutor.shutdown();
+
+		try {
+			this.readExecutor.awaitTermination(30, TimeUnit.SECONDS);
+			this.writeExecutor.awaitTermination(30, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		// whatever is still queued could not be written before the shutdown
+		logDroppedRedeems(List.copyOf(this.pendingRedeems), "before shutting down");
+
+		if (this.statementCache != null)
+			this.statementCache.close();
+
+		if (this.readPool.isDone() && !this.readPool.isCompletedExceptionally())
+			this.readPool.join().close();
 	}
 
 	public void createVoucher(@NotNull final Voucher voucher, Callback<Voucher> callback) {
-		this.runAsync(() -> this.databaseConnector.connect(connection -> {
+		this.write(connection -> {
 			final String query = "INSERT INTO " + this.getTablePrefix() + "voucher (id, name, description, item, options, rewards,reward_mode) VALUES (?, ?, ?, ?, ?, ?, ?)";
-			final String fetchQuery = "SELECT * FROM " + this.getTablePrefix() + "voucher WHERE id = ?";
 
 			try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-				final PreparedStatement fetch = connection.prepareStatement(fetchQuery);
-
-				fetch.setString(1, voucher.getId().toLowerCase());
-
 				preparedStatement.setString(1, voucher.getId().toLowerCase());
 				preparedStatement.setString(2, voucher.getName());
 				preparedStatement.setString(3, String.join(";;;", voucher.getDescription()));
 				preparedStatement.setString(4, ItemEncoder.encodeItem(voucher.getItem()));
 				preparedStatement.setString(5, voucher.getOptions().toJsonString());
-				preparedStatement.setString(6, voucher.getRewardJson());
+				preparedStatement.setString(6, "[]");
 				preparedStatement.setString(7, voucher.getRewardMode().name());
 
 				preparedStatement.executeUpdate();
 
-				if (callback != null) {
-					final ResultSet res = fetch.executeQuery();
-					res.next();
-					callback.accept(null, extractVoucher(res));
-				}
+				for (int i = 0; i < voucher.getRewards().size(); i++)
+					writeReward(connection, voucher.getId(), voucher.getRewards().get(i), i);
+
+				for (int i = 0; i < voucher.getOptions().getMessages().size(); i++)
+					writeMessage(connection, voucher.getId(), voucher.getOptions().getMessages().get(i), i);
+
+				if (callback != null)
+					callback.accept(null, voucher);
 
 			} catch (Exception e) {
 				e.printStackTrace();
 				resolveCallback(callback, e);
 			}
-		}));
+		});
 	}
 
 	public void getVouchers(@NonNull final Callback<List<Voucher>> callback) {
 		final List<Voucher> vouchers = new ArrayList<>();
-		this.runAsync(() -> this.databaseConnector.connect(connection -> {
-			try (PreparedStatement statement = connection.prepareStatement("SELECT * FROM " + this.getTablePrefix() + "voucher")) {
+		this.read(connection -> {
+			try (PreparedStatement statement = connection.prepareStatement("SELECT * FROM " + this.getTablePrefix() + "voucher");
+				 PreparedStatement rewardStatement = connection.prepareStatement("SELECT * FROM " + this.getTablePrefix() + "voucher_reward ORDER BY voucher, position");
+				 PreparedStatement messageStatement = connection.prepareStatement("SELECT * FROM " + this.getTablePrefix() + "voucher_message ORDER BY voucher, position")) {
+
+				final Map<String, List<Reward>> rewards = new HashMap<>();
+				final ResultSet rewardSet = rewardStatement.executeQuery();
+				while (rewardSet.next()) {
+					rewards.computeIfAbsent(rewardSet.getString("voucher"), voucher -> new ArrayList<>()).add(extractReward(rewardSet));
+				}
+
+				final Map<String, List<Message>> messages = new HashMap<>();
+				final ResultSet messageSet = messageStatement.executeQuery();
+				while (messageSet.next()) {
+					messages.computeIfAbsent(messageSet.getString("voucher"), voucher -> new ArrayList<>()).add(extractMessage(messageSet));
+				}
+
 				final ResultSet resultSet = statement.executeQuery();
 				while (resultSet.next()) {
-					vouchers.add(extractVoucher(resultSet));
+					final String id = resultSet.getString("id");
+					vouchers.add(extractVoucher(resultSet, rewards.getOrDefault(id, new ArrayList<>()), messages.getOrDefault(id, new ArrayList<>())));
 				}
 
 				callback.accept(null, vouchers);
 			} catch (Exception e) {
 				resolveCallback(callback, e);
 			}
-		}));
+		});
 	}
 
 	public void updateVoucher(@NonNull final Voucher voucher, Callback<Boolean> callback) {
-		this.runAsync(() -> this.databaseConnector.connect(connection -> {
-			try (PreparedStatement preparedStatement = connection.prepareStatement("UPDATE " + this.getTablePrefix() + "voucher SET name = ?, description = ?, item = ?, options = ?, rewards = ?, reward_mode = ? WHERE id = ?")) {
+		this.write(connection -> {
+			// reward and message rows are written one at a time as they change
+			try (PreparedStatement preparedStatement = connection.prepareStatement("UPDATE " + this.getTablePrefix() + "voucher SET name = ?, description = ?, item = ?, options = ?, reward_mode = ? WHERE id = ?")) {
 
 				preparedStatement.setString(1, voucher.getName());
 				preparedStatement.setString(2, String.join(";;;", voucher.getDescription()));
 				preparedStatement.setString(3, ItemEncoder.encodeItem(voucher.getItem()));
 				preparedStatement.setString(4, voucher.getOptions().toJsonString());
-				preparedStatement.setString(5, voucher.getRewardJson());
-				preparedStatement.setString(6, voucher.getRewardMode().name());
-				preparedStatement.setString(7, voucher.getId().toLowerCase());
+				preparedStatement.setString(5, voucher.getRewardMode().name());
+				preparedStatement.setString(6, voucher.getId().toLowerCase());
 
 				int result = preparedStatement.executeUpdate();
 
@@ -120,75 +217,599 @@ public final class DataManager extends DataManagerAbstract {
 			} catch (Exception e) {
 				resolveCallback(callback, e);
 			}
-		}));
+		});
+	}
+
+	/**
+	 * Rewrites any voucher or reward item still in the old yaml encoding with the binary encoding
+	 *
+	 * @param callback receives how many items were rewritten
+	 */
+	public void reencodeLegacyItems(Callback<Integer> callback) {
+		this.write(connection -> {
+			try (PreparedStatement voucherSelect = connection.prepareStatement("SELECT id, item FROM " + this.getTablePrefix() + "voucher");
+				 PreparedStatement voucherUpdate = connection.prepareStatement("UPDATE " + this.getTablePrefix() + "voucher SET item = ? WHERE id = ?");
+				 PreparedStatement rewardSelect = connection.prepareStatement("SELECT id, item FROM " + this.getTablePrefix() + "voucher_reward WHERE item IS NOT NULL");
+				 PreparedStatement rewardUpdate = connection.prepareStatement("UPDATE " + this.getTablePrefix() + "voucher_reward SET item = ? WHERE id = ?")) {
+
+				final int rewritten = reencodeLegacyItems(voucherSelect, voucherUpdate) + reencodeLegacyItems(rewardSelect, rewardUpdate);
+
+				if (callback != null)
+					callback.accept(null, rewritten);
+			} catch (Exception e) {
+				resolveCallback(callback, e);
+			}
+		});
 	}
 
 	public void deleteVoucher(@NonNull final String id, Callback<Boolean> callback) {
-		this.runAsync(() -> this.databaseConnector.connect(connection -> {
-			try (PreparedStatement statement = connection.prepareStatement("DELETE FROM " + this.getTablePrefix() + "voucher WHERE id = ?")) {
-				statement.setString(1, id);
+		this.write(connection -> {
+			try (PreparedStatement statement = connection.prepareStatement("DELETE FROM " + this.getTablePrefix() + "voucher WHERE id = ?");
+				 PreparedStatement rewards = connection.prepareStatement("DELETE FROM " + this.getTablePrefix() + "voucher_reward WHERE voucher = ?");
+				 PreparedStatement messages = connection.prepareStatement("DELETE FROM " + this.getTablePrefix() + "voucher_message WHERE voucher = ?")) {
+				statement.setString(1, id.toLowerCase());
+				rewards.setString(1, id.toLowerCase());
+				messages.setString(1, id.toLowerCase());
 
 				int result = statement.executeUpdate();
+				rewards.executeUpdate();
+				messages.executeUpdate();
+
 				callback.accept(null, result > 0);
 
 			} catch (Exception e) {
 				resolveCallback(callback, e);
 			}
-		}));
+		});
 	}
 
-	public void createVoucherRedeem(@NotNull final Redeem redeem, Callback<Redeem> callback) {
-		this.runAsync(() -> this.databaseConnector.connect(connection -> {
-			final String query = "INSERT INTO " + this.getTablePrefix() + "voucher_redeem (id, user, voucher, time) VALUES (?, ?, ?, ?)";
-			final String fetchQuery = "SELECT * FROM " + this.getTablePrefix() + "voucher_redeem WHERE id = ?";
+	public void saveReward(@NonNull final String voucherId, @NonNull final Reward reward, final int position, Callback<Boolean> callback) {
+		this.write(connection -> {
+			try {
+				writeReward(connection, voucherId, reward, position);
 
-			try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-				final PreparedStatement fetch = connection.prepareStatement(fetchQuery);
+				if (callback != null)
+					callback.accept(null, true);
+			} catch (Exception e) {
+				resolveCallback(callback, e);
+			}
+		});
+	}
 
-				fetch.setString(1, redeem.getId().toString());
+	public void deleteReward(@NonNull final String voucherId, @NonNull final UUID rewardId, final int position, Callback<Boolean> callback) {
+		deleteRow("voucher_reward", voucherId, rewardId, position, callback);
+	}
 
-				preparedStatement.setString(1, redeem.getId().toString());
-				preparedStatement.setString(2, redeem.getUser().toString());
-				preparedStatement.setString(3, redeem.getVoucherId().toLowerCase());
-				preparedStatement.setLong(4, redeem.getTime());
+	public void swapRewardPositions(@NonNull final UUID first, final int firstPosition, @NonNull final UUID second, final int secondPosition, Callback<Boolean> callback) {
+		swapPositions("voucher_reward", first, firstPosition, second, secondPosition, callback);
+	}
 
-				preparedStatement.executeUpdate();
+	public void saveMessage(@NonNull final String voucherId, @NonNull final Message message, final int position, Callback<Boolean> callback) {
+		this.write(connection -> {
+			try {
+				writeMessage(connection, voucherId, message, position);
+
+				if (callback != null)
+					callback.accept(null, true);
+			} catch (Exception e) {
+				resolveCallback(callback, e);
+			}
+		});
+	}
+
+	public void deleteMessage(@NonNull final String voucherId, @NonNull final UUID messageId, final int position, Callback<Boolean> callback) {
+		deleteRow("voucher_message", voucherId, messageId, position, callback);
+	}
+
+	public void swapMessagePositions(@NonNull final UUID first, final int firstPosition, @NonNull final UUID second, final int secondPosition, Callback<Boolean> callback) {
+		swapPositions("voucher_message", first, firstPosition, second, secondPosition, callback);
+	}
+
+	public void queueVoucherRedeem(@NonNull final Redeem redeem) {
+		this.pendingRedeems.add(redeem);
+
+		if (this.pendingRedeemCount.incrementAndGet() >= Settings.REDEEM_WRITE_BATCH_SIZE.getInt())
+			flushVoucherRedeems();
+	}
 
-				if (callback != null) {
-					final ResultSet res = fetch.executeQuery();
-					res.next();
-					callback.accept(null, extractVoucherRedeem(res));
+	public void flushVoucherRedeems() {
+		if (this.pendingRedeems.isEmpty() || isBackingOff() || !this.redeemFlushQueued.compareAndSet(false, true)) return;
+		submit(this.writeExecutor, this::writePendingRedeems);
+	}
+
+	private boolean isBackingOff() {
+		return System.currentTimeMillis() < this.nextRedeemWriteAt;
+	}
+
+	/**
+	 * @return true if every queued redeem is in the database afterwards
+	 */
+	private boolean writePendingRedeems() {
+		this.redeemFlushQueued.set(false);
+		if (this.pendingRedeems.isEmpty()) return true;
+		if (isBackingOff()) return false;
+
+		final int batchSize = Math.max(Settings.REDEEM_WRITE_BATCH_SIZE.getInt(), 1);
+
+		while (!this.pendingRedeems.isEmpty()) {
+			final List<Redeem> batch = new ArrayList<>(batchSize);
+
+			Redeem redeem;
+			while (batch.size() < batchSize && (redeem = this.pendingRedeems.poll()) != null) {
+				batch.add(redeem);
+			}
+
+			if (batch.isEmpty()) return true;
+
+			final long writeStart = System.nanoTime();
+			final AtomicBoolean written = new AtomicBoolean();
+			this.databaseConnector.connect(connection -> {
+				final boolean autoCommit = connection.getAutoCommit();
+				connection.setAutoCommit(false);
+
+				try {
+					withStatement(connection, "INSERT INTO " + this.getTablePrefix() + "voucher_redeem (id, user, voucher, time) VALUES (?, ?, ?, ?)", preparedStatement -> {
+						for (Redeem pending : batch) {
+							preparedStatement.setString(1, pending.getId().toString());
+							preparedStatement.setString(2, pending.getUser().toString());
+							preparedStatement.setString(3, pending.getVoucherId().toLowerCase());
+							preparedStatement.setLong(4, pending.getTime());
+							preparedStatement.addBatch();
+						}
+
+						preparedStatement.executeBatch();
+					});
+					connection.commit();
+					written.set(true);
+				} catch (Exception e) {
+					connection.rollback();
+					e.printStackTrace();
+				} finally {
+					connection.setAutoCommit(autoCommit);
+				}
+			});
+
+			Vouchers.getRedeemMetrics().record(RedeemStage.DATABASE, writeStart);
+
+			if (!written.get()) {
+				Vouchers.getRedeemMetrics().recordDatabaseFailure();
+
+				if (++this.failedRedeemWrites < MAX_REDEEM_WRITE_ATTEMPTS) {
+					// back to the front in the same order, the first flush after the backoff tries again
+					for (int i = batch.size() - 1; i >= 0; i--)
+						this.pendingRedeems.offerFirst(batch.get(i));
+
+					final long backoff = Math.min(REDEEM_WRITE_BACKOFF_MILLIS << (this.failedRedeemWrites - 1), MAX_REDEEM_WRITE_BACKOFF_MILLIS);
+					this.nextRedeemWriteAt = System.currentTimeMillis() + backoff;
+					return false;
+				}
+
+				this.failedRedeemWrites = 0;
+				this.nextRedeemWriteAt = 0;
+				this.pendingRedeemCount.addAndGet(-batch.size());
+				logDroppedRedeems(batch, "after " + MAX_REDEEM_WRITE_ATTEMPTS + " failed writes");
+				return false;
+			}
+
+			this.failedRedeemWrites = 0;
+			this.nextRedeemWriteAt = 0;
+
+			// only counted down once written, so a zero count means every redeem is readable
+			this.pendingRedeemCount.addAndGet(-batch.size());
+		}
+
+		return true;
+	}
+
+	private void logDroppedRedeems(final Collection<Redeem> redeems, final String reason) {
+		if (redeems.isEmpty()) return;
+
+		// enough to put them back by hand, one csv line per redeem
+		final Logger logger = Vouchers.getInstance().getLogger();
+		logger.severe("Could not save " + redeems.size() + " redeems " + reason + ":");
+		redeems.forEach(redeem -> logger.severe(redeem.getId() + "," + redeem.getUser() + "," + redeem.getVoucherId() + "," + redeem.getTime()));
+	}
+
+	/**
+	 * Gets one page of redeems, newest first, continuing after the last redeem of the previous page.
+	 * Paging on (time, id) instead of an offset keeps every page as cheap as the first.
+	 *
+	 * @param user      is the player to filter by, or null for everyone
+	 * @param voucherId is the voucher to filter by, or null for every voucher
+	 * @param after     is the last redeem of the previous page, or null for the first page
+	 * @param limit     is the most redeems to return
+	 * @param callback  receives the page
+	 */
+	public void getRedeemPage(@Nullable final UUID user, @Nullable final String voucherId, @Nullable final Redeem after, final int limit, @NonNull final Callback<List<Redeem>> callback) {
+		final StringBuilder query = new StringBuilder("SELECT * FROM " + this.getTablePrefix() + "voucher_redeem WHERE 1 = 1");
+		if (user != null) query.append(" AND user = ?");
+		if (voucherId != null) query.append(" AND voucher = ?");
+		if (after != null) query.append(" AND (time < ? OR (time = ? AND id < ?))");
+		query.append(" ORDER BY time DESC, id DESC LIMIT ?");
+
+		final List<Redeem> redeems = new ArrayList<>();
+		readRedeems(connection -> {
+			try (PreparedStatement statement = connection.prepareStatement(query.toString())) {
+				int index = 1;
+				if (user != null) statement.setString(index++, user.toString());
+				if (voucherId != null) statement.setString(index++, voucherId.toLowerCase());
+				if (after != null) {
+					statement.setLong(index++, after.getTime());
+					statement.setLong(index++, after.getTime());
+					statement.setString(index++, after.getId().toString());
 				}
+				statement.setInt(index, limit);
 
+				try (ResultSet resultSet = statement.executeQuery()) {
+					while (resultSet.next()) {
+						redeems.add(extractVoucherRedeem(resultSet));
+					}
+				}
+
+				callback.accept(null, redeems);
 			} catch (Exception e) {
-				e.printStackTrace();
 				resolveCallback(callback, e);
 			}
-		}));
+		}, callback);
 	}
 
-	public void getVoucherRedeems(@NonNull final Callback<List<Redeem>> callback) {
-		final List<Redeem> redeems = new ArrayList<>();
-		this.runAsync(() -> this.databaseConnector.connect(connection -> {
-			try (PreparedStatement statement = connection.prepareStatement("SELECT * FROM " + this.getTablePrefix() + "voucher_redeem")) {
+	public void getVoucherRedeemCounts(@NonNull final UUID user, @NonNull final Callback<Map<String, Integer>> callback) {
+		final Map<String, Integer> counts = new HashMap<>();
+		final DatabaseConnector.ConnectionCallback query = connection -> {
+			// archived redeems still count towards the limit, one statement so an archive run can't land in between
+			try (PreparedStatement statement = connection.prepareStatement("SELECT voucher, COUNT(*) AS total FROM " + this.getTablePrefix() + "voucher_redeem WHERE user = ? GROUP BY voucher " +
+					"UNION ALL SELECT voucher, total FROM " + this.getTablePrefix() + "voucher_redeem_rollup WHERE user = ?")) {
+				statement.setString(1, user.toString());
+				statement.setString(2, user.toString());
+
+				try (ResultSet resultSet = statement.executeQuery()) {
+					while (resultSet.next()) {
+						counts.merge(resultSet.getString("voucher").toLowerCase(), resultSet.getInt("total"), Integer::sum);
+					}
+				}
+
+				callback.accept(null, counts);
+			} catch (Exception e) {
+				resolveCallback(callback, e);
+			}
+		};
+
+		readRedeems(query, callback);
+	}
+
+	/**
+	 * Gets how many times each voucher has been redeemed across every player
+	 *
+	 * @param callback receives the totals keyed by lowercase voucher id
+	 */
+	public void getRedeemTotalsByVoucher(@NonNull final Callback<Map<String, Integer>> callback) {
+		final Map<String, Integer> totals = new HashMap<>();
+		readRedeems(connection -> {
+			// answered from the (voucher, time) index without touching the table
+			try (PreparedStatement statement = connection.prepareStatement("SELECT voucher, COUNT(*) AS total FROM " + this.getTablePrefix() + "voucher_redeem GROUP BY voucher " +
+					"UNION ALL SELECT voucher, SUM(total) AS total FROM " + this.getTablePrefix() + "voucher_redeem_rollup GROUP BY voucher");
+				 ResultSet resultSet = statement.executeQuery()) {
+
+				while (resultSet.next()) {
+					totals.merge(resultSet.getString("voucher").toLowerCase(), resultSet.getInt("total"), Integer::sum);
+				}
+
+				callback.accept(null, totals);
+			} catch (Exception e) {
+				resolveCallback(callback, e);
+			}
+		}, callback);
+	}
+
+	/**
+	 * Gets every player's redeem counts, including archived redeems. History and rollups are read by
+	 * one statement so an archive run can't move rows between them mid read.
+	 *
+	 * @param before   is the time in millis redeems have to be older than to be counted
+	 * @param callback receives player -> lowercase voucher id -> total redeems
+	 */
+	public void getAllRedeemCounts(final long before, @NonNull final Callback<Map<UUID, Map<String, Integer>>> callback) {
+		final Map<UUID, Map<String, Integer>> counts = new HashMap<>();
+		readRedeems(connection -> {
+			try (PreparedStatement statement = connection.prepareStatement("SELECT user, voucher, COUNT(*) AS total FROM " + this.getTablePrefix() + "voucher_redeem WHERE time < ? GROUP BY user, voucher " +
+					"UNION ALL SELECT user, voucher, total FROM " + this.getTablePrefix() + "voucher_redeem_rollup")) {
+				statement.setLong(1, before);
 				final ResultSet resultSet = statement.executeQuery();
+
 				while (resultSet.next()) {
-					redeems.add(extractVoucherRedeem(resultSet));
+					counts.computeIfAbsent(UUID.fromString(resultSet.getString("user")), user -> new HashMap<>()).merge(resultSet.getString("voucher").toLowerCase(), resultSet.getInt("total"), Integer::sum);
 				}
 
-				callback.accept(null, redeems);
+				callback.accept(null, counts);
+			} catch (Exception e) {
+				resolveCallback(callback, e);
+			}
+		}, callback);
+	}
+
+	/**
+	 * Archives one chunk of the oldest redeems made before the given time. The rows are rolled up into
+	 * per player counts and written to the archive before the transaction that deletes them commits.
+	 *
+	 * @param before   is the time in millis redeems have to be older than
+	 * @param limit    is the most redeems to archive in this chunk
+	 * @param archive  is where the removed redeems are written
+	 * @param callback receives how many redeems were archived, fewer than the limit means nothing is left
+	 */
+	public void archiveRedeems(final long before, final int limit, @NonNull final RedeemArchive archive, Callback<Integer> callback) {
+		this.write(connection -> {
+			final boolean autoCommit = connection.getAutoCommit();
+			connection.setAutoCommit(false);
+
+			try {
+				final List<Redeem> chunk = new ArrayList<>();
+				withStatement(connection, "SELECT * FROM " + this.getTablePrefix() + "voucher_redeem WHERE time < ? ORDER BY time LIMIT ?", select -> {
+					select.setLong(1, before);
+					select.setInt(2, limit);
+
+					try (ResultSet resultSet = select.executeQuery()) {
+						while (resultSet.next()) {
+							chunk.add(extractVoucherRedeem(resultSet));
+						}
+					}
+				});
+
+				final Map<UUID, Map<String, Integer>> totals = new HashMap<>();
+				chunk.forEach(redeem -> totals.computeIfAbsent(redeem.getUser(), user -> new HashMap<>()).merge(redeem.getVoucherId().toLowerCase(), 1, Integer::sum));
+
+				// update first and only insert rows that didn't exist, works the same on sqlite and mysql
+				withStatement(connection, "UPDATE " + this.getTablePrefix() + "voucher_redeem_rollup SET total = total + ? WHERE user = ? AND voucher = ?", update ->
+						withStatement(connection, "INSERT INTO " + this.getTablePrefix() + "voucher_redeem_rollup (user, voucher, total) VALUES (?, ?, ?)", insert -> {
+							for (Map.Entry<UUID, Map<String, Integer>> playerTotals : totals.entrySet()) {
+								for (Map.Entry<String, Integer> total : playerTotals.getValue().entrySet()) {
+									update.setInt(1, total.getValue());
+									update.setString(2, playerTotals.getKey().toString());
+									update.setString(3, total.getKey());
+									if (update.executeUpdate() > 0) continue;
+
+									insert.setString(1, playerTotals.getKey().toString());
+									insert.setString(2, total.getKey());
+									insert.setInt(3, total.getValue());
+									insert.executeUpdate();
+								}
+							}
+						}));
+
+				withStatement(connection, "DELETE FROM " + this.getTablePrefix() + "voucher_redeem WHERE id = ?", delete -> {
+					for (Redeem redeem : chunk) {
+						delete.setString(1, redeem.getId().toString());
+						delete.addBatch();
+					}
+
+					delete.executeBatch();
+				});
+
+				// a crash between the two can only duplicate archive lines, never lose redeems
+				archive.append(chunk);
+				connection.commit();
+
+				if (callback != null)
+					callback.accept(null, chunk.size());
+			} catch (Exception e) {
+				connection.rollback();
+				resolveCallback(callback, e);
+			} finally {
+				connection.setAutoCommit(autoCommit);
+			}
+		});
+	}
+
+	public void saveCooldowns(@NonNull final Map<UUID, Map<String, Long>> cooldowns, Callback<Boolean> callback) {
+		this.write(connection -> {
+			final boolean autoCommit = connection.getAutoCommit();
+			connection.setAutoCommit(false);
+
+			// only this snapshot's rows and expired ones are touched, other servers sharing the table keep theirs
+			try {
+				withStatement(connection, "DELETE FROM " + this.getTablePrefix() + "voucher_cooldown WHERE expires <= ?", delete -> {
+					delete.setLong(1, System.currentTimeMillis());
+					delete.executeUpdate();
+				});
+				withStatement(connection, "REPLACE INTO " + this.getTablePrefix() + "voucher_cooldown (user, voucher, expires) VALUES (?, ?, ?)", insert -> {
+					for (Map.Entry<UUID, Map<String, Long>> playerCooldowns : cooldowns.entrySet()) {
+						for (Map.Entry<String, Long> cooldown : playerCooldowns.getValue().entrySet()) {
+							insert.setString(1, playerCooldowns.getKey().toString());
+							insert.setString(2, cooldown.getKey());
+							insert.setLong(3, cooldown.getValue());
+							insert.addBatch();
+						}
+					}
+
+					insert.executeBatch();
+				});
+				connection.commit();
+
+				if (callback != null)
+					callback.accept(null, true);
+			} catch (Exception e) {
+				connection.rollback();
+				resolveCallback(callback, e);
+			} finally {
+				connection.setAutoCommit(autoCommit);
+			}
+		});
+	}
+
+	public void getCooldowns(@NonNull final Callback<Map<UUID, Map<String, Long>>> callback) {
+		final Map<UUID, Map<String, Long>> cooldowns = new HashMap<>();
+		this.read(connection -> {
+			try (PreparedStatement statement = connection.prepareStatement("SELECT * FROM " + this.getTablePrefix() + "voucher_cooldown WHERE expires > ?")) {
+				statement.setLong(1, System.currentTimeMillis());
+
+				final ResultSet resultSet = statement.executeQuery();
+				while (resultSet.next()) {
+					cooldowns.computeIfAbsent(UUID.fromString(resultSet.getString("user")), user -> new HashMap<>()).put(resultSet.getString("voucher"), resultSet.getLong("expires"));
+				}
+
+				callback.accept(null, cooldowns);
+			} catch (Exception e) {
+				resolveCallback(callback, e);
+			}
+		});
+	}
+
+	public void savePendingRewards(@NonNull final List<PendingReward> rewards, Callback<Boolean> callback) {
+		this.write(connection -> {
+			try {
+				withStatement(connection, "INSERT INTO " + this.getTablePrefix() + "voucher_pending_reward (id, user, due, reward) VALUES (?, ?, ?, ?)", statement -> {
+					for (PendingReward pending : rewards) {
+						statement.setString(1, pending.id().toString());
+						statement.setString(2, pending.user().toString());
+						statement.setLong(3, pending.due());
+						statement.setString(4, pending.reward().toJsonString());
+						statement.addBatch();
+					}
+
+					statement.executeBatch();
+				});
+
+				if (callback != null)
+					callback.accept(null, true);
+			} catch (Exception e) {
+				resolveCallback(callback, e);
+			}
+		});
+	}
+
+	public void deletePendingRewards(@NonNull final List<UUID> ids, Callback<Boolean> callback) {
+		this.write(connection -> {
+			try {
+				withStatement(connection, "DELETE FROM " + this.getTablePrefix() + "voucher_pending_reward WHERE id = ?", statement -> {
+					for (UUID id : ids) {
+						statement.setString(1, id.toString());
+						statement.addBatch();
+					}
+
+					statement.executeBatch();
+				});
+
+				if (callback != null)
+					callback.accept(null, true);
+			} catch (Exception e) {
+				resolveCallback(callback, e);
+			}
+		});
+	}
+
+	public void getPendingRewards(@NonNull final Callback<List<PendingReward>> callback) {
+		final List<PendingReward> rewards = new ArrayList<>();
+		this.read(connection -> {
+			try (PreparedStatement statement = connection.prepareStatement("SELECT * FROM " + this.getTablePrefix() + "voucher_pending_reward")) {
+				final ResultSet resultSet = statement.executeQuery();
+				while (resultSet.next()) {
+					rewards.add(new PendingReward(
+							UUID.fromString(resultSet.getString("id")),
+							UUID.fromString(resultSet.getString("user")),
+							resultSet.getLong("due"),
+							RewardFactory.decode(resultSet.getString("reward"))
+					));
+				}
+
+				callback.accept(null, rewards);
+			} catch (Exception e) {
+				resolveCallback(callback, e);
+			}
+		});
+	}
+
+	private void writeReward(final Connection connection, final String voucherId, final Reward reward, final int position) throws SQLException {
+		withStatement(connection, "REPLACE INTO " + this.getTablePrefix() + "voucher_reward (id, voucher, position, type, chance, delay, command, item) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", statement -> {
+			statement.setString(1, reward.getId().toString());
+			statement.setString(2, voucherId.toLowerCase());
+			statement.setInt(3, position);
+			statement.setString(4, reward.getType().name());
+			statement.setDouble(5, reward.getChance());
+			statement.setInt(6, reward.getDelay());
+			statement.setString(7, reward instanceof final CommandReward commandReward ? commandReward.getCommand() : null);
+			statement.setString(8, reward instanceof final ItemReward itemReward && itemReward.hasItem() ? ItemEncoder.encodeItem(itemReward.getItem()) : null);
+			statement.executeUpdate();
+		});
+	}
+
+	private void writeMessage(final Connection connection, final String voucherId, final Message message, final int position) throws SQLException {
+		withStatement(connection, "REPLACE INTO " + this.getTablePrefix() + "voucher_message (id, voucher, position, type, message, fade_in, stay, fade_out) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", statement -> {
+			statement.setString(1, message.getId().toString());
+			statement.setString(2, voucherId.toLowerCase());
+			statement.setInt(3, position);
+			statement.setString(4, message.getMessageType().name());
+			statement.setString(5, message.getMessage());
+			statement.setInt(6, message.getFadeInDuration());
+			statement.setInt(7, message.getStayDuration());
+			statement.setInt(8, message.getFadeOutDuration());
+			statement.executeUpdate();
+		});
+	}
+
+	private void deleteRow(final String table, final String voucherId, final UUID id, final int position, Callback<Boolean> callback) {
+		this.write(connection -> {
+			// close the gap so positions keep matching list indexes
+			try (PreparedStatement delete = connection.prepareStatement("DELETE FROM " + this.getTablePrefix() + table + " WHERE id = ?");
+				 PreparedStatement shift = connection.prepareStatement("UPDATE " + this.getTablePrefix() + table + " SET position = position - 1 WHERE voucher = ? AND position > ?")) {
+				delete.setString(1, id.toString());
+				shift.setString(1, voucherId.toLowerCase());
+				shift.setInt(2, position);
+
+				int result = delete.executeUpdate();
+				shift.executeUpdate();
+
+				if (callback != null)
+					callback.accept(null, result > 0);
+			} catch (Exception e) {
+				resolveCallback(callback, e);
+			}
+		});
+	}
+
+	private void swapPositions(final String table, final UUID first, final int firstPosition, final UUID second, final int secondPosition, Callback<Boolean> callback) {
+		this.write(connection -> {
+			try (PreparedStatement statement = connection.prepareStatement("UPDATE " + this.getTablePrefix() + table + " SET position = ? WHERE id = ?")) {
+				statement.setInt(1, firstPosition);
+				statement.setString(2, first.toString());
+				statement.addBatch();
+
+				statement.setInt(1, secondPosition);
+				statement.setString(2, second.toString());
+				statement.addBatch();
+
+				statement.executeBatch();
+
+				if (callback != null)
+					callback.accept(null, true);
 			} catch (Exception e) {
 				resolveCallback(callback, e);
 			}
-		}));
+		});
 	}
 
+	private int reencodeLegacyItems(final PreparedStatement select, final PreparedStatement update) throws SQLException {
+		int rewritten = 0;
+
+		try (ResultSet resultSet = select.executeQuery()) {
+			while (resultSet.next()) {
+				final String encoded = resultSet.getString("item");
+				if (!ItemEncoder.isLegacy(encoded)) continue;
+
+				final ItemStack item = ItemEncoder.decodeItem(encoded);
+				if (item == null) continue;
 
-	private Voucher extractVoucher(final ResultSet resultSet) throws SQLException {
-		final JsonArray object = JsonParser.parseString(resultSet.getString("rewards")).getAsJsonArray();
+				update.setString(1, ItemEncoder.encodeItem(item));
+				update.setString(2, resultSet.getString("id"));
+				update.executeUpdate();
+				rewritten++;
+			}
+		}
+
+		return rewritten;
+	}
 
-		final List<Reward> rewardList = new ArrayList<>();
-		object.forEach(el -> rewardList.add(RewardFactory.decode(el.getAsJsonObject().toString())));
+	private Voucher extractVoucher(final ResultSet resultSet, final List<Reward> rewards, final List<Message> messages) throws SQLException {
+		final VoucherOptions options = VoucherSettings.decode(resultSet.getString("options"));
+		options.setMessages(messages);
 
 		return new ActiveVoucher(
 				resultSet.getString("id"),
@@ -196,8 +817,30 @@ public final class DataManager extends DataManagerAbstract {
 				ItemEncoder.decodeItem(resultSet.getString("item")),
 				new ArrayList<>(Arrays.asList(resultSet.getString("description").split(";;;"))),
 				RewardMode.valueOf(resultSet.getString("reward_mode").toUpperCase()),
-				VoucherSettings.decode(resultSet.getString("options")),
-				rewardList
+				options,
+				rewards
+		);
+	}
+
+	private Reward extractReward(final ResultSet resultSet) throws SQLException {
+		final UUID id = UUID.fromString(resultSet.getString("id"));
+		final String item = resultSet.getString("item");
+
+		return switch (RewardType.valueOf(resultSet.getString("type").toUpperCase())) {
+			case COMMAND -> new CommandReward(id, resultSet.getString("command"), resultSet.getDouble("chance"), resultSet.getInt("delay"));
+			// a row whose item can't be decoded still loads, so positions stay in step, and is skipped when given
+			case ITEM -> new ItemReward(id, item == null ? null : RewardFactory.decodeItemTemplate(item), resultSet.getDouble("chance"));
+		};
+	}
+
+	private Message extractMessage(final ResultSet resultSet) throws SQLException {
+		return new VoucherMessage(
+				UUID.fromString(resultSet.getString("id")),
+				MessageType.valueOf(resultSet.getString("type").toUpperCase()),
+				resultSet.getString("message"),
+				resultSet.getInt("fade_in"),
+				resultSet.getInt("stay"),
+				resultSet.getInt("fade_out")
 		);
 	}
 
@@ -210,7 +853,92 @@ public final class DataManager extends DataManagerAbstract {
 		);
 	}
 
+	private void write(final DatabaseConnector.ConnectionCallback task) {
+		submit(this.writeExecutor, () -> this.databaseConnector.connect(task));
+	}
+
+	private void read(final DatabaseConnector.ConnectionCallback task) {
+		// mysql reads share the hikari pool
+		if (this.statementCache == null) {
+			submit(this.readExecutor, () -> this.databaseConnector.connect(task));
+			return;
+		}
+
+		if (!this.prepared)
+			throw new IllegalStateException("DataManager#prepare() has to be called before anything is read");
+
+		submit(this.readExecutor, () -> {
+			try {
+				this.readPool.get().connect(task);
+			} catch (SQLException | InterruptedException | ExecutionException e) {
+				e.printStackTrace();
+			}
+		});
+	}
+
+	private void readRedeems(final DatabaseConnector.ConnectionCallback query, final Callback<?> callback) {
+		if (this.pendingRedeemCount.get() == 0) {
+			this.read(query);
+			return;
+		}
+
+		// anything still queued has to land first or it won't be counted
+		submit(this.writeExecutor, () -> {
+			if (!writePendingRedeems()) {
+				resolveCallback(callback, new SQLException("Queued redeems could not be saved, the result would leave them out"));
+				return;
+			}
+
+			this.read(query);
+		});
+	}
+
+	private void submit(final ExecutorService executor, final Runnable task) {
+		// running it on the caller's thread would race the draining writer over its statements, so it's dropped
+		if (executor.isShutdown()) {
+			Vouchers.getInstance().getLogger().warning("Dropped a storage task that arrived after the storage shut down");
+			return;
+		}
+
+		try {
+			executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			// shut down between the check and the execute
+			Vouchers.getInstance().getLogger().warning("Dropped a storage task that arrived after the storage shut down");
+		}
+	}
+
+	/**
+	 * Uses the cached statement for the query when there is a cache, otherwise prepares and closes a new one
+	 */
+	private void withStatement(final Connection connection, final String query, final StatementConsumer consumer) throws SQLException {
+		if (this.statementCache == null) {
+			try (PreparedStatement statement = connection.prepareStatement(query)) {
+				consumer.accept(statement);
+			}
+			return;
+		}
+
+		consumer.accept(this.statementCache.get(connection, query));
+	}
+
+	private static ThreadFactory threadFactory(final String name) {
+		final AtomicInteger count = new AtomicInteger();
+		return runnable -> {
+			final Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	@FunctionalInterface
+	private interface StatementConsumer {
+		void accept(PreparedStatement statement) throws SQLException;
+	}
+
 	private void resolveCallback(@Nullable Callback<?> callback, @NotNull Exception ex) {
+		Vouchers.getRedeemMetrics().recordDatabaseFailure();
+
 		if (callback != null) {
 			callback.accept(ex, null);
 		} else {
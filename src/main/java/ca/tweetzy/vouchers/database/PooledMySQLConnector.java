@@ -0,0 +1,95 @@
+/*
+ * Vouchers
+ * Copyright 2022 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.vouchers.database;
+
+import ca.tweetzy.feather.database.DatabaseConnector;
+import ca.tweetzy.vouchers.settings.Settings;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.bukkit.plugin.Plugin;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * A pooled connection to a MySQL or MariaDB server, so several servers can share the same data
+ */
+public final class PooledMySQLConnector implements DatabaseConnector {
+
+	private final Plugin plugin;
+	private HikariDataSource dataSource;
+	private boolean initialized;
+
+	public PooledMySQLConnector(Plugin plugin) {
+		this.plugin = plugin;
+
+		final HikariConfig config = new HikariConfig();
+		config.setPoolName(plugin.getName() + "-pool");
+		config.setJdbcUrl(jdbcUrl());
+		config.setUsername(Settings.DATABASE_USERNAME.getString());
+		config.setPassword(Settings.DATABASE_PASSWORD.getString());
+		config.setMaximumPoolSize(Math.max(Settings.DATABASE_POOL_SIZE.getInt(), 1));
+
+		// driver side statement cache and multi row batch inserts, both are mysql connector properties
+		final int statementCacheSize = Settings.DATABASE_STATEMENT_CACHE_SIZE.getInt();
+		config.addDataSourceProperty("cachePrepStmts", String.valueOf(statementCacheSize > 0));
+		config.addDataSourceProperty("prepStmtCacheSize", String.valueOf(Math.max(statementCacheSize, 0)));
+		config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+		config.addDataSourceProperty("useServerPrepStmts", "true");
+		config.addDataSourceProperty("rewriteBatchedStatements", String.valueOf(Settings.DATABASE_REWRITE_BATCHED_STATEMENTS.getBoolean()));
+
+		try {
+			this.dataSource = new HikariDataSource(config);
+			this.initialized = true;
+		} catch (Exception ex) {
+			this.initialized = false;
+			this.plugin.getLogger().severe("Failed to connect to the database: " + ex.getMessage());
+		}
+	}
+
+	@Override
+	public boolean isInitialized() {
+		return this.initialized;
+	}
+
+	@Override
+	public void closeConnection() {
+		if (this.dataSource != null)
+			this.dataSource.close();
+	}
+
+	@Override
+	public void connect(ConnectionCallback callback) {
+		try (Connection connection = this.dataSource.getConnection()) {
+			callback.accept(connection);
+		} catch (SQLException ex) {
+			this.plugin.getLogger().severe("An error occurred executing a MySQL query: " + ex.getMessage());
+			ex.printStackTrace();
+		}
+	}
+
+	private static String jdbcUrl() {
+		// lets the backend be pointed at something else, like an embedded database in mysql mode
+		final String override = Settings.DATABASE_JDBC_URL.getString();
+		if (override != null && !override.isBlank())
+			return override;
+
+		return "jdbc:mysql://" + Settings.DATABASE_HOST.getString() + ":" + Settings.DATABASE_PORT.getInt() + "/" + Settings.DATABASE_NAME.getString() + "?useSSL=" + Settings.DATABASE_USE_SSL.getBoolean();
+	}
+}
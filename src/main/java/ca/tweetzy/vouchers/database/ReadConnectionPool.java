@@ -0,0 +1,98 @@
+/*
+ * Vouchers
+ * Copyright 2022 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.vouchers.database;
+
+import ca.tweetzy.feather.database.DatabaseConnector;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A handful of read only connections to the same sqlite file as the writer,
+ * with the database in wal mode they can read while the writer holds its lock
+ */
+final class ReadConnectionPool {
+
+	private final String url;
+	private final int size;
+	private final BlockingQueue<Connection> idle;
+	private final AtomicInteger opened = new AtomicInteger();
+
+	ReadConnectionPool(final String url, final int size) {
+		this.url = url;
+		this.size = Math.max(size, 1);
+		this.idle = new ArrayBlockingQueue<>(this.size);
+	}
+
+	void connect(final DatabaseConnector.ConnectionCallback callback) throws SQLException, InterruptedException {
+		final Connection connection = borrow();
+
+		try {
+			callback.accept(connection);
+		} finally {
+			if (connection.isClosed() || !this.idle.offer(connection)) {
+				this.opened.decrementAndGet();
+				connection.close();
+			}
+		}
+	}
+
+	void close() {
+		Connection connection;
+		while ((connection = this.idle.poll()) != null) {
+			try {
+				connection.close();
+			} catch (SQLException ignored) {
+			}
+		}
+	}
+
+	private Connection borrow() throws SQLException, InterruptedException {
+		final Connection connection = this.idle.poll();
+		if (connection != null) return connection;
+
+		if (this.opened.incrementAndGet() > this.size) {
+			this.opened.decrementAndGet();
+			return this.idle.take();
+		}
+
+		try {
+			return open();
+		} catch (SQLException ex) {
+			this.opened.decrementAndGet();
+			throw ex;
+		}
+	}
+
+	private Connection open() throws SQLException {
+		final Connection connection = DriverManager.getConnection(this.url);
+
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("PRAGMA query_only = true");
+			statement.execute("PRAGMA busy_timeout = 5000");
+		}
+
+		return connection;
+	}
+}
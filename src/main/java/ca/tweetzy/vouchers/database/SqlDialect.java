@@ -0,0 +1,51 @@
+/*
+ * Vouchers
+ * Copyright 2022 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.vouchers.database;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * The bits of DDL that differ between the databases we support, queries themselves stay portable
+ */
+@Getter
+@AllArgsConstructor
+public enum SqlDialect {
+
+	// sqlite only cares about type affinity, LONG is kept so existing tables match
+	SQLITE("LONG"),
+	// in mysql LONG means MEDIUMTEXT
+	MYSQL("BIGINT");
+
+	private final String bigInteger;
+
+	public String dropIndex(@NonNull final String index, @NonNull final String table) {
+		// mysql indexes belong to their table, sqlite ones are named schema wide
+		return this == SQLITE ? "DROP INDEX " + index : "DROP INDEX " + index + " ON " + table;
+	}
+
+	public static SqlDialect of(@NonNull final Connection connection) throws SQLException {
+		final String product = connection.getMetaData().getDatabaseProductName().toLowerCase();
+		return product.contains("sqlite") ? SQLITE : MYSQL;
+	}
+}
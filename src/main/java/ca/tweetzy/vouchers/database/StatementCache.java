@@ -0,0 +1,66 @@
+/*
+ * Vouchers
+ * Copyright 2022 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.vouchers.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps prepared statements open between queries on one long lived connection,
+ * not thread safe so it should only be touched from the thread that owns the connection
+ */
+final class StatementCache {
+
+	private final Map<String, PreparedStatement> statements = new HashMap<>();
+	private Connection connection;
+
+	PreparedStatement get(final Connection connection, final String query) throws SQLException {
+		// the connector handed out a different connection, the old statements are useless now
+		if (this.connection != connection) {
+			close();
+			this.connection = connection;
+		}
+
+		PreparedStatement statement = this.statements.get(query);
+		if (statement == null || statement.isClosed()) {
+			statement = connection.prepareStatement(query);
+			this.statements.put(query, statement);
+		} else {
+			statement.clearParameters();
+			statement.clearBatch();
+		}
+
+		return statement;
+	}
+
+	void close() {
+		for (PreparedStatement statement : this.statements.values()) {
+			try {
+				statement.close();
+			} catch (SQLException ignored) {
+			}
+		}
+
+		this.statements.clear();
+		this.connection = null;
+	}
+}
@@ -19,6 +19,7 @@
 package ca.tweetzy.vouchers.database.migrations;
 
 import ca.tweetzy.feather.database.DataMigration;
+import ca.tweetzy.vouchers.database.SqlDialect;
 
 import java.sql.Connection;
 import java.sql.SQLException;
@@ -32,6 +33,8 @@ public final class _1_InitialMigration extends DataMigration {
 
 	@Override
 	public void migrate(Connection connection, String tablePrefix) throws SQLException {
+		final SqlDialect dialect = SqlDialect.of(connection);
+
 		try (Statement statement = connection.createStatement()) {
 			statement.execute("CREATE TABLE " + tablePrefix + "voucher (" +
 					"id VARCHAR(64) PRIMARY KEY, " +
@@ -47,7 +50,7 @@ public final class _1_InitialMigration extends DataMigration {
 					"id VARCHAR(36) PRIMARY KEY, " +
 					"user VARCHAR(36) NOT NULL, " +
 					"voucher VARCHAR(64) NOT NULL, " +
-					"time LONG NOT NULL " +
+					"time " + dialect.getBigInteger() + " NOT NULL " +
 					")");
 		}
 	}
@@ -0,0 +1,125 @@
+/*
+ * Vouchers
+ * Copyright 2022 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.vouchers.database.migrations;
+
+import ca.tweetzy.feather.database.DataMigration;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.sql.*;
+import java.util.UUID;
+
+public final class _4_NormalizedRewardMigration extends DataMigration {
+
+	public _4_NormalizedRewardMigration() {
+		super(4);
+	}
+
+	@Override
+	public void migrate(Connection connection, String tablePrefix) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("CREATE TABLE " + tablePrefix + "voucher_reward (" +
+					"id VARCHAR(36) PRIMARY KEY, " +
+					"voucher VARCHAR(64) NOT NULL, " +
+					"position INTEGER NOT NULL, " +
+					"type VARCHAR(32) NOT NULL, " +
+					"chance DOUBLE NOT NULL, " +
+					"delay INTEGER NOT NULL, " +
+					"command TEXT, " +
+					"item TEXT " +
+					")");
+
+			statement.execute("CREATE TABLE " + tablePrefix + "voucher_message (" +
+					"id VARCHAR(36) PRIMARY KEY, " +
+					"voucher VARCHAR(64) NOT NULL, " +
+					"position INTEGER NOT NULL, " +
+					"type VARCHAR(32) NOT NULL, " +
+					"message TEXT NOT NULL, " +
+					"fade_in INTEGER NOT NULL, " +
+					"stay INTEGER NOT NULL, " +
+					"fade_out INTEGER NOT NULL " +
+					")");
+
+			statement.execute("CREATE INDEX " + tablePrefix + "voucher_reward_voucher ON " + tablePrefix + "voucher_reward (voucher, position)");
+			statement.execute("CREATE INDEX " + tablePrefix + "voucher_message_voucher ON " + tablePrefix + "voucher_message (voucher, position)");
+		}
+
+		// move the json blobs of existing vouchers into the new tables
+		try (PreparedStatement select = connection.prepareStatement("SELECT id, options, rewards FROM " + tablePrefix + "voucher");
+			 PreparedStatement insertReward = connection.prepareStatement("INSERT INTO " + tablePrefix + "voucher_reward (id, voucher, position, type, chance, delay, command, item) VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+			 PreparedStatement insertMessage = connection.prepareStatement("INSERT INTO " + tablePrefix + "voucher_message (id, voucher, position, type, message, fade_in, stay, fade_out) VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+			 PreparedStatement update = connection.prepareStatement("UPDATE " + tablePrefix + "voucher SET options = ?, rewards = ? WHERE id = ?")) {
+
+			final ResultSet resultSet = select.executeQuery();
+			while (resultSet.next()) {
+				final String voucher = resultSet.getString("id");
+
+				final JsonArray rewards = JsonParser.parseString(resultSet.getString("rewards")).getAsJsonArray();
+				for (int i = 0; i < rewards.size(); i++) {
+					final JsonObject reward = rewards.get(i).getAsJsonObject();
+					final String type = reward.get("type").getAsString().toUpperCase();
+
+					insertReward.setString(1, idOf(reward));
+					insertReward.setString(2, voucher);
+					insertReward.setInt(3, i);
+					insertReward.setString(4, type);
+					insertReward.setDouble(5, reward.get("chance").getAsDouble());
+					insertReward.setInt(6, reward.has("delay") ? reward.get("delay").getAsInt() : 0);
+					insertReward.setString(7, type.equals("COMMAND") ? reward.get("command").getAsString() : null);
+					insertReward.setString(8, type.equals("ITEM") ? reward.get("item").getAsString() : null);
+					insertReward.addBatch();
+				}
+
+				final JsonObject options = JsonParser.parseString(resultSet.getString("options")).getAsJsonObject();
+				final JsonElement messages = options.remove("messages");
+				if (messages != null) {
+					final JsonArray messageArray = messages.getAsJsonArray();
+					for (int i = 0; i < messageArray.size(); i++) {
+						final JsonObject message = messageArray.get(i).getAsJsonObject();
+
+						insertMessage.setString(1, idOf(message));
+						insertMessage.setString(2, voucher);
+						insertMessage.setInt(3, i);
+						insertMessage.setString(4, message.get("type").getAsString().toUpperCase());
+						insertMessage.setString(5, message.get("message").getAsString());
+						insertMessage.setInt(6, message.get("fadeIn").getAsInt());
+						insertMessage.setInt(7, message.get("stay").getAsInt());
+						insertMessage.setInt(8, message.get("fadeOut").getAsInt());
+						insertMessage.addBatch();
+					}
+				}
+
+				update.setString(1, options.toString());
+				update.setString(2, "[]");
+				update.setString(3, voucher);
+				update.addBatch();
+			}
+
+			insertReward.executeBatch();
+			insertMessage.executeBatch();
+			update.executeBatch();
+		}
+	}
+
+	private String idOf(final JsonObject object) {
+		return object.has("id") ? object.get("id").getAsString() : UUID.randomUUID().toString();
+	}
+}
@@ -0,0 +1,47 @@
+/*
+ * Vouchers
+ * Copyright 2022 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.vouchers.database.migrations;
+
+import ca.tweetzy.feather.database.DataMigration;
+import ca.tweetzy.vouchers.database.SqlDialect;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+public final class _6_RedeemCompositeIndexMigration extends DataMigration {
+
+	public _6_RedeemCompositeIndexMigration() {
+		super(6);
+	}
+
+	@Override
+	public void migrate(Connection connection, String tablePrefix) throws SQLException {
+		final SqlDialect dialect = SqlDialect.of(connection);
+
+		try (Statement statement = connection.createStatement()) {
+			// per player counts group on (user, voucher), per voucher totals and history on (voucher, time)
+			statement.execute("CREATE INDEX " + tablePrefix + "voucher_redeem_user_voucher ON " + tablePrefix + "voucher_redeem (user, voucher)");
+			statement.execute("CREATE INDEX " + tablePrefix + "voucher_redeem_voucher_time ON " + tablePrefix + "voucher_redeem (voucher, time)");
+
+			// anything the old user index served is covered by the (user, voucher) prefix
+			statement.execute(dialect.dropIndex(tablePrefix + "voucher_redeem_user", tablePrefix + "voucher_redeem"));
+		}
+	}
+}
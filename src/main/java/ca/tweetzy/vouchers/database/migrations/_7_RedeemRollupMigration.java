@@ -0,0 +1,48 @@
+/*
+ * Vouchers
+ * Copyright 2022 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.vouchers.database.migrations;
+
+import ca.tweetzy.feather.database.DataMigration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+public final class _7_RedeemRollupMigration extends DataMigration {
+
+	public _7_RedeemRollupMigration() {
+		super(7);
+	}
+
+	@Override
+	public void migrate(Connection connection, String tablePrefix) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			// what is left of archived redeems, one row per player and voucher
+			statement.execute("CREATE TABLE " + tablePrefix + "voucher_redeem_rollup (" +
+					"user VARCHAR(36) NOT NULL, " +
+					"voucher VARCHAR(64) NOT NULL, " +
+					"total INTEGER NOT NULL, " +
+					"PRIMARY KEY (user, voucher) " +
+					")");
+
+			// the retention job walks the oldest rows first
+			statement.execute("CREATE INDEX " + tablePrefix + "voucher_redeem_time ON " + tablePrefix + "voucher_redeem (time)");
+		}
+	}
+}
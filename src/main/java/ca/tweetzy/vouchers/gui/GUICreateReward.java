@@ -248,14 +248,12 @@ public final class GUICreateReward extends BaseGUI {
 
 			if (this.rewardType == RewardType.ITEM) {
 				this.itemReward = new ItemReward(getItem(1, 4), this.itemReward.getChance());
-				this.voucher.getRewards().add(this.itemReward);
+				this.voucher.addReward(this.itemReward);
 			}
 
 			if (this.rewardType == RewardType.COMMAND) {
-				this.voucher.getRewards().add(this.commandReward);
+				this.voucher.addReward(this.commandReward);
 			}
-
-			this.voucher.sync(true);
 			click.manager.showGUI(click.player, new GUIRewardList(this.voucher));
 
 		});
@@ -93,8 +93,7 @@ public final class GUIMessageType extends BaseGUI {
 
 									final int stayRate = Integer.parseInt(stay);
 
-									GUIMessageType.this.voucher.getOptions().getMessages().add(new VoucherMessage(MessageType.TITLE, inputTitle, fadeInOutRate, stayRate, fadeInOutRate));
-									GUIMessageType.this.voucher.sync(true);
+									GUIMessageType.this.voucher.addMessage(new VoucherMessage(MessageType.TITLE, inputTitle, fadeInOutRate, stayRate, fadeInOutRate));
 
 									click.manager.showGUI(click.player, new GUIMessagesList(GUIMessageType.this.voucher));
 									return true;
@@ -157,8 +156,7 @@ public final class GUIMessageType extends BaseGUI {
 
 									final int stayRate = Integer.parseInt(stay);
 
-									GUIMessageType.this.voucher.getOptions().getMessages().add(new VoucherMessage(MessageType.SUBTITLE, inputTitle, fadeInOutRate, stayRate, fadeInOutRate));
-									GUIMessageType.this.voucher.sync(true);
+									GUIMessageType.this.voucher.addMessage(new VoucherMessage(MessageType.SUBTITLE, inputTitle, fadeInOutRate, stayRate, fadeInOutRate));
 
 									click.manager.showGUI(click.player, new GUIMessagesList(GUIMessageType.this.voucher));
 									return true;
@@ -185,8 +183,7 @@ public final class GUIMessageType extends BaseGUI {
 
 				@Override
 				public boolean onResult(String inputTitle) {
-					GUIMessageType.this.voucher.getOptions().getMessages().add(new VoucherMessage(MessageType.ACTION_BAR, inputTitle, 0, 0, 0));
-					GUIMessageType.this.voucher.sync(true);
+					GUIMessageType.this.voucher.addMessage(new VoucherMessage(MessageType.ACTION_BAR, inputTitle, 0, 0, 0));
 					click.manager.showGUI(click.player, new GUIMessagesList(GUIMessageType.this.voucher));
 					return true;
 				}
@@ -202,8 +199,7 @@ public final class GUIMessageType extends BaseGUI {
 
 			@Override
 			public boolean onResult(String inputTitle) {
-				GUIMessageType.this.voucher.getOptions().getMessages().add(new VoucherMessage(MessageType.BROADCAST, inputTitle, 0, 0, 0));
-				GUIMessageType.this.voucher.sync(true);
+				GUIMessageType.this.voucher.addMessage(new VoucherMessage(MessageType.BROADCAST, inputTitle, 0, 0, 0));
 				click.manager.showGUI(click.player, new GUIMessagesList(GUIMessageType.this.voucher));
 				return true;
 			}
@@ -218,8 +214,7 @@ public final class GUIMessageType extends BaseGUI {
 
 			@Override
 			public boolean onResult(String inputTitle) {
-				GUIMessageType.this.voucher.getOptions().getMessages().add(new VoucherMessage(MessageType.CHAT, inputTitle, 0, 0, 0));
-				GUIMessageType.this.voucher.sync(true);
+				GUIMessageType.this.voucher.addMessage(new VoucherMessage(MessageType.CHAT, inputTitle, 0, 0, 0));
 				click.manager.showGUI(click.player, new GUIMessagesList(GUIMessageType.this.voucher));
 				return true;
 			}
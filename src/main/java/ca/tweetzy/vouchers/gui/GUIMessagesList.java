@@ -32,7 +32,6 @@ import org.bukkit.event.inventory.ClickType;
 import org.bukkit.inventory.ItemStack;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 public final class GUIMessagesList extends PagedGUI<Message> {
@@ -89,16 +88,14 @@ public final class GUIMessagesList extends PagedGUI<Message> {
 				this.selectedIndex = clickedIndex;
 			else {
 				if (this.selectedIndex == clickedIndex) return;
-				Collections.swap(this.voucher.getOptions().getMessages(), this.selectedIndex, clickedIndex);
-				this.voucher.sync(true);
+				this.voucher.swapMessages(this.selectedIndex, clickedIndex);
 
 				click.manager.showGUI(click.player, new GUIMessagesList(GUIMessagesList.this.voucher));
 			}
 		}
 
 		if (click.clickType == ClickType.NUMBER_KEY) {
-			this.voucher.getOptions().getMessages().remove(message);
-			this.voucher.sync(true);
+			this.voucher.removeMessage(message);
 			click.manager.showGUI(click.player, new GUIMessagesList(this.voucher));
 		}
 	}
@@ -31,7 +31,6 @@ import lombok.NonNull;
 import org.bukkit.event.inventory.ClickType;
 import org.bukkit.inventory.ItemStack;
 
-import java.util.Collections;
 import java.util.List;
 
 public final class GUIRewardList extends PagedGUI<Reward> {
@@ -47,7 +46,7 @@ public final class GUIRewardList extends PagedGUI<Reward> {
 
 	@Override
 	protected ItemStack makeDisplayItem(Reward reward) {
-		ItemStack displayItem = reward instanceof ItemReward ? ((ItemReward) reward).getItem() : CompMaterial.PAPER.parseItem();
+		ItemStack displayItem = reward instanceof ItemReward && ((ItemReward) reward).hasItem() ? ((ItemReward) reward).getItem() : CompMaterial.PAPER.parseItem();
 
 		final QuickItem quickItem = QuickItem.of(displayItem);
 
@@ -87,16 +86,14 @@ public final class GUIRewardList extends PagedGUI<Reward> {
 				this.selectedIndex = clickedIndex;
 			else {
 				if (this.selectedIndex == clickedIndex) return;
-				Collections.swap(this.voucher.getRewards(), this.selectedIndex, clickedIndex);
-				this.voucher.sync(true);
+				this.voucher.swapRewards(this.selectedIndex, clickedIndex);
 
 				click.manager.showGUI(click.player, new GUIRewardList(GUIRewardList.this.voucher));
 			}
 		}
 
 		if (click.clickType == ClickType.NUMBER_KEY) {
-			this.voucher.getRewards().remove(reward);
-			this.voucher.sync(true);
+			this.voucher.removeReward(reward);
 			click.manager.showGUI(click.player, new GUIRewardList(GUIRewardList.this.voucher));
 		}
 	}
@@ -48,7 +48,7 @@ public final class GUIRewardSelection extends PagedGUI<Reward> {
 
 	@Override
 	protected ItemStack makeDisplayItem(Reward reward) {
-		ItemStack displayItem = reward instanceof ItemReward ? ((ItemReward) reward).getItem() : CompMaterial.PAPER.parseItem();
+		ItemStack displayItem = reward instanceof ItemReward && ((ItemReward) reward).hasItem() ? ((ItemReward) reward).getItem() : CompMaterial.PAPER.parseItem();
 
 		final QuickItem quickItem = QuickItem.of(displayItem);
 
@@ -69,7 +69,6 @@ public final class GUIRewardSelection extends PagedGUI<Reward> {
 
 	@Override
 	protected void onClick(Reward reward, GuiClickEvent click) {
-		reward.execute(click.player, Settings.REWARD_PICK_IS_GUARANTEED.getBoolean());
 		this.selected.accept(reward);
 	}
 
@@ -19,51 +19,176 @@
 package ca.tweetzy.vouchers.gui;
 
 import ca.tweetzy.feather.comp.enums.CompMaterial;
-import ca.tweetzy.feather.gui.events.GuiClickEvent;
 import ca.tweetzy.feather.gui.helper.InventoryBorder;
-import ca.tweetzy.feather.gui.template.PagedGUI;
+import ca.tweetzy.feather.gui.template.BaseGUI;
+import ca.tweetzy.feather.utils.Common;
 import ca.tweetzy.feather.utils.QuickItem;
+import ca.tweetzy.feather.utils.input.TitleInput;
 import ca.tweetzy.vouchers.Vouchers;
 import ca.tweetzy.vouchers.api.voucher.Redeem;
 import ca.tweetzy.vouchers.api.voucher.Voucher;
-import org.bukkit.Bukkit;
+import ca.tweetzy.vouchers.settings.Locale;
+import lombok.NonNull;
+import org.bukkit.ChatColor;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.ClickType;
 import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.Nullable;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
-public final class GUIVoucherRedeemList extends PagedGUI<Redeem> {
+public final class GUIVoucherRedeemList extends BaseGUI {
 
-	public GUIVoucherRedeemList() {
-		super(new GUIVouchersAdmin(), "&bVouchers &8> &7Listing Redeems", 6, Vouchers.getRedeemManager().getAll());
+	private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("MMMM dd, yyyy - hh:mm:ss a").withZone(ZoneId.systemDefault());
+	private static final List<Integer> FILL_SLOTS = InventoryBorder.getInsideBorders(5);
+
+	private final UUID user;
+	private final String voucherId;
+	// the last redeem of every page before this one, empty on the first page
+	private final List<Redeem> cursors;
+	private final List<Redeem> redeems;
+	private final boolean hasNext;
+
+	private GUIVoucherRedeemList(@Nullable final UUID user, @Nullable final String voucherId, @NonNull final List<Redeem> cursors, @NonNull final List<Redeem> page) {
+		super(new GUIVouchersAdmin(), "&bVouchers &8> &7Listing Redeems", 6);
+		this.user = user;
+		this.voucherId = voucherId;
+		this.cursors = cursors;
+		this.hasNext = page.size() > FILL_SLOTS.size();
+		this.redeems = this.hasNext ? page.subList(0, FILL_SLOTS.size()) : page;
 		draw();
 	}
 
+	public static void open(@NonNull final Player player) {
+		open(player, null, null, List.of());
+	}
+
+	/**
+	 * Fetches the page after the last cursor and opens it on the main thread once every name on it is known
+	 */
+	public static void open(@NonNull final Player player, @Nullable final UUID user, @Nullable final String voucherId, @NonNull final List<Redeem> cursors) {
+		final Redeem after = cursors.isEmpty() ? null : cursors.get(cursors.size() - 1);
+
+		// one extra row tells us if there is a next page
+		Vouchers.getDataManager().getRedeemPage(user, voucherId, after, FILL_SLOTS.size() + 1, (error, page) -> {
+			if (error != null) {
+				error.printStackTrace();
+				return;
+			}
+
+			// the page arrives on a database thread, resolve hands the callback back to the main thread
+			Vouchers.getPlayerNameCache().resolve(page.stream().map(Redeem::getUser).toList(), () ->
+					Vouchers.getGuiManager().showGUI(player, new GUIVoucherRedeemList(user, voucherId, cursors, page)));
+		});
+	}
+
 	@Override
-	protected ItemStack makeDisplayItem(Redeem redeem) {
+	protected void draw() {
+		for (int i = 0; i < this.redeems.size(); i++) {
+			final int slot = FILL_SLOTS.get(i);
+			setItem(slot / 9, slot % 9, makeDisplayItem(this.redeems.get(i)));
+		}
+
+		if (!this.cursors.isEmpty())
+			setButton(5, 3, QuickItem.of(CompMaterial.ARROW).name("&b&lPrevious Page").lore(
+					"&b&lClick &8» &7To go back a page"
+			).make(), click -> open(click.player, this.user, this.voucherId, List.copyOf(this.cursors.subList(0, this.cursors.size() - 1))));
+
+		if (this.hasNext)
+			setButton(5, 5, QuickItem.of(CompMaterial.ARROW).name("&b&lNext Page").lore(
+					"&b&lClick &8» &7To go to the next page"
+			).make(), click -> {
+				final List<Redeem> next = new ArrayList<>(this.cursors);
+				next.add(this.redeems.get(this.redeems.size() - 1));
+				open(click.player, this.user, this.voucherId, next);
+			});
+
+		setButton(5, 2, QuickItem.of(CompMaterial.PLAYER_HEAD).name("&b&lFilter Player").lore(
+				"&7Current&f: &b" + (this.user == null ? "Everyone" : Vouchers.getPlayerNameCache().getName(this.user)),
+				"",
+				"&b&lLeft Click &8» &7To filter by player",
+				"&c&lRight Click &8» &7To clear the filter"
+		).make(), click -> {
+			if (click.clickType == ClickType.RIGHT) {
+				open(click.player, null, this.voucherId, List.of());
+				return;
+			}
+
+			new TitleInput(click.player, "&b&lRedeem History", "&fEnter player name into chat") {
+
+				@Override
+				public void onExit(Player player) {
+					click.manager.showGUI(click.player, GUIVoucherRedeemList.this);
+				}
+
+				@Override
+				public boolean onResult(String string) {
+					Vouchers.getPlayerNameCache().lookup(ChatColor.stripColor(string).trim(), found -> {
+						if (found == null) {
+							Common.tell(click.player, Locale.PLAYER_NOT_FOUND.getString());
+							click.manager.showGUI(click.player, GUIVoucherRedeemList.this);
+							return;
+						}
+
+						open(click.player, found, GUIVoucherRedeemList.this.voucherId, List.of());
+					});
+
+					return true;
+				}
+			};
+		});
+
+		setButton(5, 6, QuickItem.of(CompMaterial.PAPER).name("&b&lFilter Voucher").lore(
+				"&7Current&f: &b" + (this.voucherId == null ? "Every voucher" : this.voucherId),
+				"",
+				"&b&lLeft Click &8» &7To filter by voucher",
+				"&c&lRight Click &8» &7To clear the filter"
+		).make(), click -> {
+			if (click.clickType == ClickType.RIGHT) {
+				open(click.player, this.user, null, List.of());
+				return;
+			}
+
+			new TitleInput(click.player, "&b&lRedeem History", "&fEnter voucher id into chat") {
+
+				@Override
+				public void onExit(Player player) {
+					click.manager.showGUI(click.player, GUIVoucherRedeemList.this);
+				}
+
+				@Override
+				public boolean onResult(String string) {
+					final Voucher voucher = Vouchers.getVoucherManager().find(ChatColor.stripColor(string.toLowerCase()).trim());
+					if (voucher == null) {
+						Common.tell(click.player, Locale.VOUCHER_NOT_FOUND.getString());
+						return false;
+					}
+
+					open(click.player, GUIVoucherRedeemList.this.user, voucher.getId(), List.of());
+					return true;
+				}
+			};
+		});
+
+		applyBackExit();
+	}
+
+	private ItemStack makeDisplayItem(final Redeem redeem) {
 		final Voucher voucher = Vouchers.getVoucherManager().find(redeem.getVoucherId());
-		final SimpleDateFormat format = new SimpleDateFormat();
-		format.applyPattern("MMMM dd, yyyy - hh:mm:ss aa");
 
 		return QuickItem
 				.of(voucher != null ? voucher.getItem() : CompMaterial.PAPER.parseItem())
 				.name(redeem.getVoucherId() + " &8> &7Redeemed")
 				.lore(
 						"",
-						"&7Redeemer&f: &b" + Bukkit.getOfflinePlayer(redeem.getUser()).getName(),
-						"&7Time&f: &b" + format.format(new Date(redeem.getTime()))
+						"&7Redeemer&f: &b" + Vouchers.getPlayerNameCache().getName(redeem.getUser()),
+						"&7Time&f: &b" + TIME_FORMAT.format(Instant.ofEpochMilli(redeem.getTime()))
 				)
 				.make();
 	}
-
-	@Override
-	protected void onClick(Redeem object, GuiClickEvent clickEvent) {
-
-	}
-
-	@Override
-	protected List<Integer> fillSlots() {
-		return InventoryBorder.getInsideBorders(5);
-	}
 }
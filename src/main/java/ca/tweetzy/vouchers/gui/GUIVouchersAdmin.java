@@ -56,7 +56,7 @@ public final class GUIVouchersAdmin extends BaseGUI {
 						"",
 						"&b&lClick &8» &7To view redeems"
 				)
-				.make(), click -> click.manager.showGUI(click.player, new GUIVoucherRedeemList()));
+				.make(), click -> GUIVoucherRedeemList.open(click.player));
 
 
 		setButton(1, 7, QuickItem
@@ -20,19 +20,24 @@ package ca.tweetzy.vouchers.impl;
 
 import ca.tweetzy.feather.utils.QuickItem;
 import ca.tweetzy.vouchers.Vouchers;
+import ca.tweetzy.vouchers.api.voucher.AbstractReward;
+import ca.tweetzy.vouchers.api.voucher.Message;
 import ca.tweetzy.vouchers.api.voucher.Reward;
 import ca.tweetzy.vouchers.api.voucher.RewardMode;
 import ca.tweetzy.vouchers.api.voucher.Voucher;
 import ca.tweetzy.vouchers.api.voucher.VoucherOptions;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
-import lombok.AllArgsConstructor;
+import ca.tweetzy.vouchers.model.AliasSampler;
+import ca.tweetzy.vouchers.model.ItemEncoder;
+import com.google.gson.stream.JsonWriter;
+import lombok.SneakyThrows;
 import org.bukkit.inventory.ItemStack;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
-@AllArgsConstructor
 public final class ActiveVoucher implements Voucher {
 
 	private final String id;
@@ -43,6 +48,22 @@ public final class ActiveVoucher implements Voucher {
 	private VoucherOptions options;
 	private List<Reward> rewards;
 
+	// built on the first random pick, dropped whenever the rewards change
+	private volatile AliasSampler<Reward> rewardSampler;
+
+	// the finished voucher item, dropped whenever anything shown on it changes
+	private volatile ItemStack builtItem;
+
+	public ActiveVoucher(String id, String name, ItemStack item, List<String> description, RewardMode rewardMode, VoucherOptions options, List<Reward> rewards) {
+		this.id = id;
+		this.name = name;
+		this.item = item;
+		this.description = description;
+		this.rewardMode = rewardMode;
+		this.options = options;
+		this.rewards = rewards;
+	}
+
 	@Override
 	public String getId() {
 		return this.id;
@@ -86,45 +107,157 @@ public final class ActiveVoucher implements Voucher {
 	@Override
 	public void setName(String name) {
 		this.name = name;
+		this.builtItem = null;
 	}
 
 	@Override
 	public void setItem(ItemStack item) {
 		this.item = item;
+		this.builtItem = null;
 	}
 
 	@Override
 	public void setDescription(List<String> description) {
 		this.description = description;
+		this.builtItem = null;
+	}
+
+	@Override
+	public void addReward(Reward reward) {
+		this.rewards.add(reward);
+		this.rewardSampler = null;
+		Vouchers.getDataManager().saveReward(this.id, reward, this.rewards.size() - 1, null);
+	}
+
+	@Override
+	public void removeReward(Reward reward) {
+		final int position = this.rewards.indexOf(reward);
+		if (position == -1) return;
+
+		this.rewards.remove(position);
+		this.rewardSampler = null;
+		Vouchers.getDataManager().deleteReward(this.id, reward.getId(), position, null);
+	}
+
+	@Override
+	public void swapRewards(int first, int second) {
+		Collections.swap(this.rewards, first, second);
+		this.rewardSampler = null;
+		Vouchers.getDataManager().swapRewardPositions(this.rewards.get(first).getId(), first, this.rewards.get(second).getId(), second, null);
+	}
+
+	@Override
+	public void addMessage(Message message) {
+		this.options.getMessages().add(message);
+		Vouchers.getDataManager().saveMessage(this.id, message, this.options.getMessages().size() - 1, null);
 	}
 
 	@Override
+	public void removeMessage(Message message) {
+		final int position = this.options.getMessages().indexOf(message);
+		if (position == -1) return;
+
+		this.options.getMessages().remove(position);
+		Vouchers.getDataManager().deleteMessage(this.id, message.getId(), position, null);
+	}
+
+	@Override
+	public void swapMessages(int first, int second) {
+		Collections.swap(this.options.getMessages(), first, second);
+		Vouchers.getDataManager().swapMessagePositions(this.options.getMessages().get(first).getId(), first, this.options.getMessages().get(second).getId(), second, null);
+	}
+
+	@Override
+	public void writeTo(JsonWriter writer) throws IOException {
+		writer.beginObject();
+		writer.name("id").value(this.id);
+		writer.name("name").value(this.name);
+		writer.name("item").value(ItemEncoder.encodeItem(this.item));
+
+		writer.name("description").beginArray();
+		for (String line : this.description)
+			writer.value(line);
+		writer.endArray();
+
+		writer.name("rewardMode").value(this.rewardMode.name());
+		writer.name("options");
+		this.options.writeTo(writer);
+
+		writer.name("messages").beginArray();
+		for (Message message : this.options.getMessages())
+			message.writeTo(writer);
+		writer.endArray();
+
+		writer.name("rewards").beginArray();
+		for (Reward reward : this.rewards)
+			reward.writeTo(writer);
+		writer.endArray();
+		writer.endObject();
+	}
+
+	@Override
+	@SneakyThrows
 	public String getRewardJson() {
-		final JsonArray jsonArray = new JsonArray();
+		final StringWriter out = new StringWriter();
+		final JsonWriter writer = new JsonWriter(out);
+
+		writer.beginArray();
+		for (Reward reward : this.rewards)
+			reward.writeTo(writer);
+		writer.endArray();
+
+		return out.toString();
+	}
 
-		this.rewards.forEach(reward -> {
-			final JsonObject object = JsonParser.parseString(reward.toJsonString()).getAsJsonObject();
-			jsonArray.add(object);
-		});
+	@Override
+	public Reward pickRandomReward(Random random) {
+		AliasSampler<Reward> sampler = this.rewardSampler;
+		if (sampler == null) {
+			sampler = AliasSampler.of(this.rewards, Reward::getChance);
+			this.rewardSampler = sampler;
+		}
 
-		return jsonArray.toString();
+		return sampler.sample(random);
 	}
 
 	@Override
 	public void sync(boolean silent) {
+		// a reward's chance, the lore or the options may have been edited in place
+		this.rewardSampler = null;
+		this.builtItem = null;
 		Vouchers.getDataManager().updateVoucher(this, null);
+
+		// only the rows that were edited are saved, rewards from other plugins can't tell so they always are
+		for (int i = 0; i < this.rewards.size(); i++) {
+			final Reward reward = this.rewards.get(i);
+			if (!(reward instanceof final AbstractReward abstractReward) || abstractReward.pollDirty())
+				Vouchers.getDataManager().saveReward(this.id, reward, i, null);
+		}
+
+		final List<Message> messages = this.options.getMessages();
+		for (int i = 0; i < messages.size(); i++) {
+			final Message message = messages.get(i);
+			if (!(message instanceof final VoucherMessage voucherMessage) || voucherMessage.pollDirty())
+				Vouchers.getDataManager().saveMessage(this.id, message, i, null);
+		}
 	}
 
 	@Override
 	public ItemStack buildItem() {
-		return QuickItem
-				.of(this.item)
-				.name(this.name)
-				.lore(this.description)
-				.glow(this.options.isGlowing())
-				.hideTags(true)
-				.unbreakable(true)
-				.tag("Tweetzy:Vouchers", this.id)
-				.make();
+		ItemStack built = this.builtItem;
+		if (built == null) {
+			built = QuickItem
+					.of(this.item)
+					.name(this.name)
+					.lore(this.description)
+					.glow(this.options.isGlowing())
+					.hideTags(true)
+					.unbreakable(true)
+					.tag("Tweetzy:Vouchers", this.id)
+					.make();
+			this.builtItem = built;
+		}
+
+		return built.clone();
 	}
 }
@@ -21,25 +21,52 @@ package ca.tweetzy.vouchers.impl;
 import ca.tweetzy.feather.comp.ActionBar;
 import ca.tweetzy.feather.comp.Titles;
 import ca.tweetzy.feather.utils.Common;
-import ca.tweetzy.feather.utils.Replacer;
+import ca.tweetzy.vouchers.Vouchers;
 import ca.tweetzy.vouchers.api.voucher.Message;
 import ca.tweetzy.vouchers.api.voucher.MessageType;
 import ca.tweetzy.vouchers.api.voucher.Voucher;
-import ca.tweetzy.vouchers.settings.Settings;
-import com.google.gson.JsonObject;
-import lombok.AllArgsConstructor;
+import ca.tweetzy.vouchers.model.MessageTemplate;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import lombok.NonNull;
 import org.bukkit.entity.Player;
 
-@AllArgsConstructor
+import java.io.IOException;
+import java.util.UUID;
+
 public final class VoucherMessage implements Message {
 
+	private final UUID id;
 	private final MessageType type;
 	private String message;
 	private int fadeInDuration;
 	private int stayDuration;
 	private int fadeOutDuration;
 
+	// rebuilt whenever the message text changes
+	private MessageTemplate template;
+	// set by the setters, cleared once the row has been saved
+	private boolean dirty;
+
+	public VoucherMessage(UUID id, MessageType type, String message, int fadeInDuration, int stayDuration, int fadeOutDuration) {
+		this.id = id;
+		this.type = type;
+		this.message = message;
+		this.fadeInDuration = fadeInDuration;
+		this.stayDuration = stayDuration;
+		this.fadeOutDuration = fadeOutDuration;
+		this.template = MessageTemplate.compile(message);
+	}
+
+	public VoucherMessage(MessageType type, String message, int fadeInDuration, int stayDuration, int fadeOutDuration) {
+		this(UUID.randomUUID(), type, message, fadeInDuration, stayDuration, fadeOutDuration);
+	}
+
+	@Override
+	public UUID getId() {
+		return this.id;
+	}
+
 	@Override
 	public MessageType getMessageType() {
 		return this.type;
@@ -68,27 +95,41 @@ public final class VoucherMessage implements Message {
 	@Override
 	public void setMessage(String message) {
 		this.message = message;
+		this.template = MessageTemplate.compile(message);
+		this.dirty = true;
 	}
 
 	@Override
 	public void setFadeInDuration(int ticks) {
 		this.fadeInDuration = ticks;
+		this.dirty = true;
 	}
 
 	@Override
 	public void setStayDuration(int ticks) {
 		this.stayDuration = ticks;
+		this.dirty = true;
 	}
 
 	@Override
 	public void setFadeOutDuration(int ticks) {
 		this.fadeOutDuration = ticks;
+		this.dirty = true;
+	}
+
+	/**
+	 * @return true if the message was edited since the last call, meaning its row has to be saved
+	 */
+	public boolean pollDirty() {
+		final boolean wasDirty = this.dirty;
+		this.dirty = false;
+		return wasDirty;
 	}
 
 	@Override
 	public void send(Player player, Voucher voucher) {
 		switch (this.type) {
-			case BROADCAST -> Common.broadcast(null, false, getColouredAndReplaced(player, voucher));
+			case BROADCAST -> Vouchers.getBroadcastDispatcher().queue(player, voucher, this);
 			case CHAT -> Common.tell(player, false, getColouredAndReplaced(player, voucher));
 			case ACTION_BAR -> ActionBar.sendActionBar(player, getColouredAndReplaced(player, voucher));
 			case TITLE -> Titles.sendTitle(player, this.fadeInDuration, this.stayDuration, this.fadeOutDuration, getColouredAndReplaced(player, voucher), "");
@@ -98,24 +139,46 @@ public final class VoucherMessage implements Message {
 
 	@Override
 	public String getColouredAndReplaced(@NonNull final Player player, @NonNull final Voucher voucher) {
-		return Common.colorize(Replacer.replaceVariables(this.message,
-				"player", player.getName(),
-				"voucher_id", voucher.getId(),
-				"voucher_name", voucher.getName(),
-				"pl_prefix", Settings.PREFIX.getString()
-		));
+		return this.template.render(player.getName(), voucher);
+	}
+
+	@Override
+	public String getColouredAndReplaced(@NonNull final String playerName, @NonNull final Voucher voucher) {
+		return this.template.render(playerName, voucher);
 	}
 
 	@Override
-	public String toJsonString() {
-		final JsonObject object = new JsonObject();
+	public void writeTo(JsonWriter writer) throws IOException {
+		writer.beginObject();
+		writer.name("id").value(this.id.toString());
+		writer.name("type").value(this.type.name());
+		writer.name("fadeIn").value(this.fadeInDuration);
+		writer.name("stay").value(this.stayDuration);
+		writer.name("fadeOut").value(this.fadeOutDuration);
+		writer.name("message").value(this.message);
+		writer.endObject();
+	}
 
-		object.addProperty("type", this.type.name());
-		object.addProperty("fadeIn", this.fadeInDuration);
-		object.addProperty("stay", this.stayDuration);
-		object.addProperty("fadeOut", this.fadeOutDuration);
-		object.addProperty("message", this.message);
+	public static Message decode(@NonNull final JsonReader reader) throws IOException {
+		UUID id = null;
+		MessageType type = null;
+		String message = null;
+		int fadeIn = 0, stay = 0, fadeOut = 0;
+
+		reader.beginObject();
+		while (reader.hasNext()) {
+			switch (reader.nextName()) {
+				case "id" -> id = UUID.fromString(reader.nextString());
+				case "type" -> type = MessageType.valueOf(reader.nextString().toUpperCase());
+				case "message" -> message = reader.nextString();
+				case "fadeIn" -> fadeIn = reader.nextInt();
+				case "stay" -> stay = reader.nextInt();
+				case "fadeOut" -> fadeOut = reader.nextInt();
+				default -> reader.skipValue();
+			}
+		}
+		reader.endObject();
 
-		return object.toString();
+		return new VoucherMessage(id == null ? UUID.randomUUID() : id, type, message, fadeIn, stay, fadeOut);
 	}
 }
@@ -19,14 +19,15 @@
 package ca.tweetzy.vouchers.impl;
 
 import ca.tweetzy.vouchers.api.voucher.Message;
-import ca.tweetzy.vouchers.api.voucher.MessageType;
 import ca.tweetzy.vouchers.api.voucher.VoucherOptions;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import lombok.AllArgsConstructor;
 import lombok.NonNull;
+import lombok.SneakyThrows;
 
+import java.io.IOException;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -47,63 +48,50 @@ public final class VoucherSettings implements VoucherOptions {
 	}
 
 	@Override
-	public String toJsonString() {
-		final JsonObject object = new JsonObject();
-
-		object.addProperty("maxUses", this.maxUses);
-		object.addProperty("cooldown", this.cooldown);
-		object.addProperty("glowing", this.glowing);
-		object.addProperty("askConfirm", this.askConfirm);
-		object.addProperty("removeOnUse", this.removeOnUse);
-		object.addProperty("requiresPermission", this.requiresPermission);
-		object.addProperty("permission", this.permission);
-
-		final JsonArray messages = new JsonArray();
-		this.messages.forEach(message -> {
-
-			final JsonObject messageObject = new JsonObject();
-			messageObject.addProperty("type", message.getMessageType().name());
-
-			messageObject.addProperty("message", message.getMessage());
-			messageObject.addProperty("fadeIn", message.getFadeInDuration());
-			messageObject.addProperty("stay", message.getStayDuration());
-			messageObject.addProperty("fadeOut", message.getFadeOutDuration());
-
-			messages.add(messageObject);
-		});
-
-		object.add("messages", messages);
-		return object.toString();
+	public void writeTo(JsonWriter writer) throws IOException {
+		writer.beginObject();
+		writer.name("maxUses").value(this.maxUses);
+		writer.name("cooldown").value(this.cooldown);
+		writer.name("glowing").value(this.glowing);
+		writer.name("askConfirm").value(this.askConfirm);
+		writer.name("removeOnUse").value(this.removeOnUse);
+		writer.name("requiresPermission").value(this.requiresPermission);
+		writer.name("permission").value(this.permission);
+		// messages have their own table
+		writer.endObject();
 	}
 
+	@SneakyThrows
 	public static VoucherOptions decode(@NonNull final String json) {
-		final JsonObject object = JsonParser.parseString(json).getAsJsonObject();
-
-		final List<Message> messages = new ArrayList<>();
-		final JsonArray msgArray = object.get("messages").getAsJsonArray();
-
-		msgArray.forEach(message -> {
-			final JsonObject messageObject = message.getAsJsonObject();
-
-			messages.add(new VoucherMessage(
-					MessageType.valueOf(messageObject.get("type").getAsString().toUpperCase()),
-					messageObject.get("message").getAsString(),
-					messageObject.get("fadeIn").getAsInt(),
-					messageObject.get("stay").getAsInt(),
-					messageObject.get("fadeOut").getAsInt()
-			));
-		});
-
-		return new VoucherSettings(
-				object.get("maxUses").getAsInt(),
-				object.get("cooldown").getAsInt(),
-				object.get("glowing").getAsBoolean(),
-				object.get("askConfirm").getAsBoolean(),
-				object.get("removeOnUse").getAsBoolean(),
-				object.get("requiresPermission").getAsBoolean(),
-				object.get("permission").getAsString(),
-				messages
-		);
+		return decode(new JsonReader(new StringReader(json)));
+	}
+
+	public static VoucherOptions decode(@NonNull final JsonReader reader) throws IOException {
+		final VoucherSettings settings = new VoucherSettings();
+
+		reader.beginObject();
+		while (reader.hasNext()) {
+			switch (reader.nextName()) {
+				case "maxUses" -> settings.maxUses = reader.nextInt();
+				case "cooldown" -> settings.cooldown = reader.nextInt();
+				case "glowing" -> settings.glowing = reader.nextBoolean();
+				case "askConfirm" -> settings.askConfirm = reader.nextBoolean();
+				case "removeOnUse" -> settings.removeOnUse = reader.nextBoolean();
+				case "requiresPermission" -> settings.requiresPermission = reader.nextBoolean();
+				case "permission" -> settings.permission = reader.nextString();
+				case "messages" -> {
+					// only present in options written before messages got their own table
+					reader.beginArray();
+					while (reader.hasNext())
+						settings.messages.add(VoucherMessage.decode(reader));
+					reader.endArray();
+				}
+				default -> reader.skipValue();
+			}
+		}
+		reader.endObject();
+
+		return settings;
 	}
 
 	@Override
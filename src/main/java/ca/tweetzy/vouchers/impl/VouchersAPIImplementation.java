@@ -18,7 +18,14 @@
 
 package ca.tweetzy.vouchers.impl;
 
+import ca.tweetzy.vouchers.Vouchers;
 import ca.tweetzy.vouchers.api.VouchersAPI;
+import ca.tweetzy.vouchers.api.metrics.RedeemMetricsSnapshot;
 
 public final class VouchersAPIImplementation implements VouchersAPI {
+
+	@Override
+	public RedeemMetricsSnapshot getRedeemMetrics() {
+		return Vouchers.getRedeemMetrics().snapshot();
+	}
 }
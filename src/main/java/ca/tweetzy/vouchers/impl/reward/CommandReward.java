@@ -18,32 +18,40 @@
 
 package ca.tweetzy.vouchers.impl.reward;
 
-import ca.tweetzy.feather.utils.Common;
 import ca.tweetzy.feather.utils.Replacer;
+import ca.tweetzy.vouchers.Vouchers;
 import ca.tweetzy.vouchers.api.voucher.AbstractReward;
 import ca.tweetzy.vouchers.api.voucher.RewardType;
 import ca.tweetzy.vouchers.model.Chance;
-import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 import lombok.Getter;
 import lombok.NonNull;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
 public final class CommandReward extends AbstractReward {
 
 	@Getter
 	private final String command;
 
-	public CommandReward(String command, double chance, int delay) {
-		super(RewardType.COMMAND, chance, delay);
+	public CommandReward(UUID id, String command, double chance, int delay) {
+		super(id, RewardType.COMMAND, chance, delay);
 		this.command = command;
 	}
 
+	public CommandReward(String command, double chance, int delay) {
+		this(UUID.randomUUID(), command, chance, delay);
+	}
+
 	@Override
 	public void execute(Player player, boolean guarantee) {
 		if (guarantee) {
-			if (this.getDelay() != -1)
-				Common.runLater(this.getDelay(), () -> executeCommand(player));
+			if (this.getDelay() > 0)
+				Vouchers.getRewardScheduler().schedule(player, List.of(this), this.getDelay());
 			else
 				executeCommand(player);
 
@@ -52,25 +60,28 @@ public final class CommandReward extends AbstractReward {
 
 		if (!Chance.tryChance(this.getChance())) return;
 
-		if (this.getDelay() != -1)
-			Common.runLater(this.getDelay(), () -> executeCommand(player));
+		if (this.getDelay() > 0)
+			Vouchers.getRewardScheduler().schedule(player, List.of(this), this.getDelay());
 		else
 			executeCommand(player);
 	}
 
 	@Override
-	public String toJsonString() {
-		final JsonObject object = new JsonObject();
-
-		object.addProperty("command", this.command);
-		object.addProperty("chance", this.getChance());
-		object.addProperty("delay", this.getDelay());
-		object.addProperty("type", RewardType.COMMAND.name());
+	public void writeTo(JsonWriter writer) throws IOException {
+		writer.beginObject();
+		writer.name("id").value(this.getId().toString());
+		writer.name("command").value(this.command);
+		writer.name("chance").value(this.getChance());
+		writer.name("delay").value(this.getDelay());
+		writer.name("type").value(RewardType.COMMAND.name());
+		writer.endObject();
+	}
 
-		return object.toString();
+	public String getCommand(@NonNull final Player player) {
+		return Replacer.replaceVariables(this.command, "player", player.getName());
 	}
 
 	private void executeCommand(@NonNull final Player player) {
-		Bukkit.getServer().dispatchCommand(Bukkit.getServer().getConsoleSender(), Replacer.replaceVariables(this.command, "player", player.getName()));
+		Bukkit.getServer().dispatchCommand(Bukkit.getServer().getConsoleSender(), getCommand(player));
 	}
 }
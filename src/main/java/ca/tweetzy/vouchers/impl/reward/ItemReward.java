@@ -18,32 +18,50 @@
 
 package ca.tweetzy.vouchers.impl.reward;
 
-import ca.tweetzy.feather.utils.Common;
+import ca.tweetzy.vouchers.Vouchers;
 import ca.tweetzy.vouchers.api.voucher.AbstractReward;
 import ca.tweetzy.vouchers.api.voucher.RewardType;
 import ca.tweetzy.vouchers.model.Chance;
 import ca.tweetzy.vouchers.model.ItemEncoder;
-import com.google.gson.JsonObject;
-import lombok.Getter;
+import com.google.gson.stream.JsonWriter;
 import lombok.NonNull;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
 public final class ItemReward extends AbstractReward {
 
-	@Getter
+	// may be a decoded template shared with other rewards, so it never leaves this class uncloned
 	private final ItemStack item;
 
-	public ItemReward(ItemStack item, double chance) {
-		super(RewardType.ITEM, chance, 0);
+	public ItemReward(UUID id, ItemStack item, double chance) {
+		super(id, RewardType.ITEM, chance, 0);
 		this.item = item;
 	}
 
+	public ItemReward(ItemStack item, double chance) {
+		this(UUID.randomUUID(), item, chance);
+	}
+
+	/**
+	 * @return a copy of the item, or null if it could not be decoded
+	 */
+	public ItemStack getItem() {
+		return this.item == null ? null : this.item.clone();
+	}
+
+	public boolean hasItem() {
+		return this.item != null;
+	}
+
 	@Override
 	public void execute(Player player, boolean guarantee) {
 		if (guarantee) {
-			if (this.getDelay() != -1)
-				Common.runLater(this.getDelay(), () -> giveItem(player));
+			if (this.getDelay() > 0)
+				Vouchers.getRewardScheduler().schedule(player, List.of(this), this.getDelay());
 			else
 				giveItem(player);
 			return;
@@ -51,27 +69,39 @@ public final class ItemReward extends AbstractReward {
 
 		if (!Chance.tryChance(this.getChance())) return;
 
-		if (this.getDelay() != -1)
-			Common.runLater(this.getDelay(), () -> giveItem(player));
+		if (this.getDelay() > 0)
+			Vouchers.getRewardScheduler().schedule(player, List.of(this), this.getDelay());
 		else
 			giveItem(player);
 	}
 
 	@Override
-	public String toJsonString() {
-		final JsonObject object = new JsonObject();
-
-		object.addProperty("item", ItemEncoder.encodeItem(this.item));
-		object.addProperty("chance", this.getChance());
-		object.addProperty("type", RewardType.ITEM.name());
+	public void writeTo(JsonWriter writer) throws IOException {
+		writer.beginObject();
+		writer.name("id").value(this.getId().toString());
+		if (this.item != null)
+			writer.name("item").value(ItemEncoder.encodeItem(this.item));
+		writer.name("chance").value(this.getChance());
+		writer.name("type").value(RewardType.ITEM.name());
+		writer.endObject();
+	}
 
-		return object.toString();
+	/**
+	 * Items that could not be decoded (a corrupt row, or one from a newer server) are skipped and logged instead
+	 */
+	public void logMissingItem() {
+		Vouchers.getInstance().getLogger().warning("Skipped item reward " + this.getId() + ", its item could not be decoded");
 	}
 
 	private void giveItem(@NonNull final Player player) {
+		if (this.item == null) {
+			logMissingItem();
+			return;
+		}
+
 		if (player.getInventory().firstEmpty() == -1)
-			player.getWorld().dropItemNaturally(player.getLocation(), this.item);
+			player.getWorld().dropItemNaturally(player.getLocation(), this.item.clone());
 		else
-			player.getInventory().addItem(this.item);
+			player.getInventory().addItem(this.item.clone());
 	}
 }
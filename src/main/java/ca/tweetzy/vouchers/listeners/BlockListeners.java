@@ -26,23 +26,21 @@ import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.inventory.PrepareItemCraftEvent;
 import org.bukkit.inventory.ItemStack;
 
-import java.util.Arrays;
-
 public final class BlockListeners implements Listener {
 
 	@EventHandler
 	public void onVoucherCraftAttempt(final PrepareItemCraftEvent event) {
-		if (Arrays.stream(event.getInventory().getContents()).anyMatch(item -> Vouchers.getVoucherManager().isVoucher(item))) {
+		for (ItemStack item : event.getInventory().getMatrix()) {
+			if (!Vouchers.getVoucherManager().isVoucher(item)) continue;
+
 			event.getInventory().setResult(CompMaterial.AIR.parseItem());
+			return;
 		}
 	}
 
 	@EventHandler
 	public void onVoucherPlaceAttempt(final BlockPlaceEvent event) {
-		final ItemStack toBePlaced = event.getItemInHand();
-		if (toBePlaced.getType() == CompMaterial.AIR.parseMaterial()) return;
-
-		if (Vouchers.getVoucherManager().isVoucher(toBePlaced))
+		if (Vouchers.getVoucherManager().isVoucher(event.getItemInHand()))
 			event.setCancelled(true);
 	}
 }
@@ -0,0 +1,41 @@
+/*
+ * Vouchers
+ * Copyright 2022 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.vouchers.listeners;
+
+import ca.tweetzy.vouchers.Vouchers;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+public final class PlayerListeners implements Listener {
+
+	@EventHandler(priority = EventPriority.LOWEST)
+	public void onPlayerJoin(final PlayerJoinEvent event) {
+		Vouchers.getRedeemManager().loadPlayer(event.getPlayer().getUniqueId());
+		Vouchers.getPlayerNameCache().remember(event.getPlayer());
+		Vouchers.getRewardScheduler().deliverWaiting(event.getPlayer());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onPlayerQuit(final PlayerQuitEvent event) {
+		Vouchers.getRedeemManager().scheduleEviction(event.getPlayer().getUniqueId());
+	}
+}
@@ -18,7 +18,6 @@
 
 package ca.tweetzy.vouchers.listeners;
 
-import ca.tweetzy.feather.comp.NBTEditor;
 import ca.tweetzy.vouchers.Vouchers;
 import ca.tweetzy.vouchers.api.voucher.Voucher;
 import ca.tweetzy.vouchers.gui.GUIConfirm;
@@ -41,12 +40,9 @@ public final class VoucherListeners implements Listener {
 		if (item == null) return;
 
 		if (event.getAction() == Action.RIGHT_CLICK_AIR || event.getAction() == Action.RIGHT_CLICK_BLOCK) {
-			// not even a voucher
-			if (!Vouchers.getVoucherManager().isVoucher(item)) return;
+			final Voucher voucher = Vouchers.getVoucherManager().resolve(item);
 
-			final Voucher voucher = Vouchers.getVoucherManager().find(NBTEditor.getString(item, "Tweetzy:Vouchers"));
-
-			// invalid / deleted voucher
+			// not a voucher, or an invalid / deleted one
 			if (voucher == null) return;
 
 			event.setUseItemInHand(Event.Result.DENY);
@@ -66,11 +62,7 @@ public final class VoucherListeners implements Listener {
 
 	@EventHandler
 	public void onHandSwapWithVoucher(final PlayerSwapHandItemsEvent event) {
-		final Player player = event.getPlayer();
-		final ItemStack itemMain = event.getMainHandItem();
-		final ItemStack itemOff = event.getOffHandItem();
-
-		if ((itemMain != null && Vouchers.getVoucherManager().isVoucher(itemMain)) || (itemOff != null && Vouchers.getVoucherManager().isVoucher(itemOff)))  {
+		if (Vouchers.getVoucherManager().isVoucher(event.getMainHandItem()) || Vouchers.getVoucherManager().isVoucher(event.getOffHandItem())) {
 			event.setCancelled(true);
 		}
 	}
@@ -0,0 +1,122 @@
+/*
+ * Vouchers
+ * Copyright 2022 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.vouchers.model;
+
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Picks from weighted options in constant time using Vose's alias method,
+ * the table is built once and can be sampled any number of times.
+ *
+ * @param <T> is the type of the options
+ */
+public final class AliasSampler<T> {
+
+	private final List<T> options;
+	private final double[] probability;
+	private final int[] alias;
+
+	private AliasSampler(final List<T> options, final double[] probability, final int[] alias) {
+		this.options = options;
+		this.probability = probability;
+		this.alias = alias;
+	}
+
+	/**
+	 * Builds a sampler, options with a weight of 0 or less can never be picked
+	 *
+	 * @param options is the options to pick from
+	 * @param weight  is the relative weight of an option
+	 * @return the sampler
+	 */
+	public static <T> AliasSampler<T> of(@NonNull final List<T> options, @NonNull final ToDoubleFunction<T> weight) {
+		final List<T> kept = new ArrayList<>(options.size());
+		final List<Double> weights = new ArrayList<>(options.size());
+		double total = 0;
+
+		for (T option : options) {
+			final double value = weight.applyAsDouble(option);
+			if (!(value > 0) || Double.isInfinite(value)) continue;
+
+			kept.add(option);
+			weights.add(value);
+			total += value;
+		}
+
+		final int size = kept.size();
+		final double[] probability = new double[size];
+		final int[] alias = new int[size];
+
+		// scale so the average weight is 1, then pair every short column with a tall one
+		final double[] scaled = new double[size];
+		final int[] small = new int[size];
+		final int[] large = new int[size];
+		int smallCount = 0, largeCount = 0;
+
+		for (int i = 0; i < size; i++) {
+			scaled[i] = weights.get(i) * size / total;
+			if (scaled[i] < 1)
+				small[smallCount++] = i;
+			else
+				large[largeCount++] = i;
+		}
+
+		while (smallCount > 0 && largeCount > 0) {
+			final int less = small[--smallCount];
+			final int more = large[--largeCount];
+
+			probability[less] = scaled[less];
+			alias[less] = more;
+
+			scaled[more] = (scaled[more] + scaled[less]) - 1;
+			if (scaled[more] < 1)
+				small[smallCount++] = more;
+			else
+				large[largeCount++] = more;
+		}
+
+		// whatever is left is 1 give or take rounding
+		while (largeCount > 0)
+			probability[large[--largeCount]] = 1;
+		while (smallCount > 0)
+			probability[small[--smallCount]] = 1;
+
+		return new AliasSampler<>(List.copyOf(kept), probability, alias);
+	}
+
+	public boolean isEmpty() {
+		return this.options.isEmpty();
+	}
+
+	/**
+	 * @param random is the source of randomness, pass a seeded one for repeatable picks
+	 * @return the picked option, or null if there is nothing to pick
+	 */
+	public T sample(@NonNull final Random random) {
+		if (this.options.isEmpty()) return null;
+
+		final int column = random.nextInt(this.options.size());
+		return random.nextDouble() < this.probability[column] ? this.options.get(column) : this.options.get(this.alias[column]);
+	}
+}
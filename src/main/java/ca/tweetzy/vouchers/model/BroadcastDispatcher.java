@@ -0,0 +1,131 @@
+/*
+ * Vouchers
+ * Copyright 2022 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.vouchers.model;
+
+import ca.tweetzy.feather.utils.Replacer;
+import ca.tweetzy.vouchers.Vouchers;
+import ca.tweetzy.vouchers.api.voucher.Message;
+import ca.tweetzy.vouchers.api.voucher.Voucher;
+import ca.tweetzy.vouchers.settings.Locale;
+import ca.tweetzy.vouchers.settings.Settings;
+import lombok.NonNull;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import java.util.*;
+
+/**
+ * Collects broadcast messages from redeems and merges them off the main thread, redeems of the same
+ * voucher message that land in the same window go out as one message. Only the final sends run on the main thread.
+ */
+public final class BroadcastDispatcher {
+
+	// in the order the groups were started, so a voucher's messages go out in the order they were redeemed
+	private final Map<String, Group> pending = new LinkedHashMap<>();
+	private final Map<String, Long> lastSent = new HashMap<>();
+
+	public void queue(@NonNull final Player player, @NonNull final Voucher voucher, @NonNull final Message message) {
+		synchronized (this.pending) {
+			this.pending.computeIfAbsent(voucher.getId().toLowerCase() + ":" + message.getId(), key -> new Group(voucher, message)).players.add(player.getName());
+		}
+	}
+
+	/**
+	 * Merges every group that isn't held back by its voucher's rate limit and sends them, the merging
+	 * can happen on any thread while the sends always happen on the main thread
+	 *
+	 * @param ignoreRateLimit is if every group should be sent, used when shutting down
+	 */
+	public void flush(final boolean ignoreRateLimit) {
+		final List<Group> due = new ArrayList<>();
+
+		synchronized (this.pending) {
+			if (this.pending.isEmpty()) return;
+
+			final long now = System.currentTimeMillis();
+			final long rateLimit = Math.max(Settings.BROADCAST_RATE_LIMIT.getInt(), 0) * 1000L;
+			final Set<String> sentNow = new HashSet<>();
+
+			final Iterator<Group> iterator = this.pending.values().iterator();
+			while (iterator.hasNext()) {
+				final Group group = iterator.next();
+				final String voucherId = group.voucher.getId().toLowerCase();
+
+				if (!ignoreRateLimit && !sentNow.contains(voucherId) && now - this.lastSent.getOrDefault(voucherId, 0L) < rateLimit)
+					continue;
+
+				// removing it hands the group over, later redeems start a new one
+				iterator.remove();
+				sentNow.add(voucherId);
+				this.lastSent.put(voucherId, now);
+				due.add(group);
+			}
+		}
+
+		if (due.isEmpty()) return;
+
+		final List<String> lines = new ArrayList<>(due.size());
+		for (Group group : due)
+			lines.add(group.message.getColouredAndReplaced(playerNames(group.players), group.voucher));
+
+		if (Bukkit.isPrimaryThread())
+			send(lines);
+		else
+			Bukkit.getScheduler().runTask(Vouchers.getInstance(), () -> send(lines));
+	}
+
+	private void send(final List<String> lines) {
+		final Collection<? extends Player> players = Bukkit.getOnlinePlayers();
+		for (String line : lines) {
+			Bukkit.getConsoleSender().sendMessage(line);
+			for (Player player : players)
+				player.sendMessage(line);
+		}
+	}
+
+	private String playerNames(final Set<String> players) {
+		if (players.size() == 1)
+			return players.iterator().next();
+
+		final int shown = Math.max(Settings.BROADCAST_MERGE_NAMES.getInt(), 1);
+		final StringJoiner names = new StringJoiner(", ");
+
+		final Iterator<String> iterator = players.iterator();
+		for (int i = 0; i < shown && iterator.hasNext(); i++)
+			names.add(iterator.next());
+
+		final int others = players.size() - shown;
+		if (others <= 0)
+			return names.toString();
+
+		return Replacer.replaceVariables(Locale.BROADCAST_MERGED_PLAYERS.getString(), "players", names.toString(), "others", String.valueOf(others));
+	}
+
+	private static final class Group {
+
+		private final Voucher voucher;
+		private final Message message;
+		private final Set<String> players = new LinkedHashSet<>();
+
+		private Group(final Voucher voucher, final Message message) {
+			this.voucher = voucher;
+			this.message = message;
+		}
+	}
+}
@@ -24,18 +24,64 @@ import lombok.experimental.UtilityClass;
 import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.util.io.BukkitObjectInputStream;
+import org.bukkit.util.io.BukkitObjectOutputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Base64;
 
 @UtilityClass
 public final class ItemEncoder {
 
+	// first byte of every binary encoded item, bump it if the layout ever changes
+	private final byte VERSION = 1;
+
+	@SneakyThrows
 	public String encodeItem(@NonNull final ItemStack itemStack) {
-		final YamlConfiguration config = new YamlConfiguration();
-		config.set("i", itemStack);
-		return config.saveToString();
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		bytes.write(VERSION);
+
+		try (BukkitObjectOutputStream outputStream = new BukkitObjectOutputStream(bytes)) {
+			outputStream.writeObject(itemStack);
+		}
+
+		return Base64.getEncoder().encodeToString(bytes.toByteArray());
 	}
 
-	@SneakyThrows
 	public ItemStack decodeItem(@NonNull final String string) {
+		if (isLegacy(string))
+			return decodeLegacyItem(string);
+
+		final byte[] bytes;
+		try {
+			bytes = Base64.getDecoder().decode(string);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+
+		if (bytes.length < 2 || bytes[0] != VERSION) return null;
+
+		try (BukkitObjectInputStream inputStream = new BukkitObjectInputStream(new ByteArrayInputStream(bytes, 1, bytes.length - 1))) {
+			return (ItemStack) inputStream.readObject();
+		} catch (IOException | ClassNotFoundException | ClassCastException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Items used to be stored as a yaml document with the item under "i"
+	 *
+	 * @param string is the encoded item
+	 * @return true if the item is still in the old yaml format
+	 */
+	public boolean isLegacy(@NonNull final String string) {
+		return string.startsWith("i:");
+	}
+
+	@SneakyThrows
+	private ItemStack decodeLegacyItem(@NonNull final String string) {
 		final YamlConfiguration config = new YamlConfiguration();
 		try {
 			config.loadFromString(string);
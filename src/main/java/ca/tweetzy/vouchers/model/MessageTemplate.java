@@ -0,0 +1,138 @@
+/*
+ * Vouchers
+ * Copyright 2022 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.vouchers.model;
+
+import ca.tweetzy.feather.utils.Common;
+import ca.tweetzy.vouchers.api.voucher.Voucher;
+import ca.tweetzy.vouchers.settings.Settings;
+import lombok.AllArgsConstructor;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A message split once into literal text and placeholders, so rendering is
+ * a single pass over the pieces instead of a replace and colorize every time.
+ */
+public final class MessageTemplate {
+
+	@AllArgsConstructor
+	private enum Placeholder {
+		PLAYER("player"),
+		VOUCHER_ID("voucher_id"),
+		VOUCHER_NAME("voucher_name"),
+		PL_PREFIX("pl_prefix");
+
+		private final String key;
+
+		private static Placeholder of(final String key) {
+			for (Placeholder placeholder : values())
+				if (placeholder.key.equals(key)) return placeholder;
+			return null;
+		}
+	}
+
+	// the prefix only changes on reload, so keep the last coloured copy
+	private static volatile String[] colouredPrefix = {"", ""};
+
+	private final String[] literals;
+	private final Placeholder[] placeholders;
+	private final int literalLength;
+
+	// gradient style tags can wrap a placeholder, those messages are coloured as a whole after rendering
+	private final boolean colourAfterRender;
+
+	private MessageTemplate(final String[] literals, final Placeholder[] placeholders, final boolean colourAfterRender) {
+		this.literals = literals;
+		this.placeholders = placeholders;
+		this.colourAfterRender = colourAfterRender;
+
+		int length = 0;
+		for (String literal : literals)
+			length += literal.length();
+		this.literalLength = length;
+	}
+
+	public static MessageTemplate compile(@NonNull final String message) {
+		final boolean colourAfterRender = message.indexOf('<') != -1;
+		final List<String> literals = new ArrayList<>();
+		final List<Placeholder> placeholders = new ArrayList<>();
+
+		final StringBuilder literal = new StringBuilder();
+		int index = 0;
+
+		while (index < message.length()) {
+			final int open = message.indexOf('%', index);
+			final int close = open == -1 ? -1 : message.indexOf('%', open + 1);
+
+			if (close == -1) {
+				literal.append(message, index, message.length());
+				break;
+			}
+
+			final Placeholder placeholder = Placeholder.of(message.substring(open + 1, close));
+			if (placeholder == null) {
+				// not one of ours, keep the first % and look again from the second
+				literal.append(message, index, close);
+				index = close;
+				continue;
+			}
+
+			literal.append(message, index, open);
+			literals.add(colourAfterRender ? literal.toString() : Common.colorize(literal.toString()));
+			placeholders.add(placeholder);
+			literal.setLength(0);
+			index = close + 1;
+		}
+
+		literals.add(colourAfterRender ? literal.toString() : Common.colorize(literal.toString()));
+		return new MessageTemplate(literals.toArray(new String[0]), placeholders.toArray(new Placeholder[0]), colourAfterRender);
+	}
+
+	public String render(@NonNull final String playerName, @NonNull final Voucher voucher) {
+		if (this.placeholders.length == 0 && !this.colourAfterRender)
+			return this.literals[0];
+
+		final StringBuilder builder = new StringBuilder(this.literalLength + this.placeholders.length * 16);
+		builder.append(this.literals[0]);
+
+		for (int i = 0; i < this.placeholders.length; i++) {
+			builder.append(switch (this.placeholders[i]) {
+				case PLAYER -> playerName;
+				case VOUCHER_ID -> voucher.getId();
+				case VOUCHER_NAME -> this.colourAfterRender ? voucher.getName() : Common.colorize(voucher.getName());
+				case PL_PREFIX -> this.colourAfterRender ? Settings.PREFIX.getString() : colouredPrefix();
+			});
+			builder.append(this.literals[i + 1]);
+		}
+
+		return this.colourAfterRender ? Common.colorize(builder.toString()) : builder.toString();
+	}
+
+	private static String colouredPrefix() {
+		final String prefix = Settings.PREFIX.getString();
+		final String[] cached = colouredPrefix;
+		if (cached[0].equals(prefix)) return cached[1];
+
+		final String coloured = Common.colorize(prefix);
+		colouredPrefix = new String[]{prefix, coloured};
+		return coloured;
+	}
+}
@@ -0,0 +1,34 @@
+/*
+ * Vouchers
+ * Copyright 2022 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.vouchers.model;
+
+import ca.tweetzy.vouchers.api.voucher.Reward;
+
+import java.util.UUID;
+
+/**
+ * A reward waiting for its delay to run out
+ *
+ * @param id     is the id of the stored row
+ * @param user   is the player owed the reward
+ * @param due    is the time in millis the reward should be given at
+ * @param reward is the reward to give
+ */
+public record PendingReward(UUID id, UUID user, long due, Reward reward) {
+}
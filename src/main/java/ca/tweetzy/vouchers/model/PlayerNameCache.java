@@ -0,0 +1,110 @@
+/*
+ * Vouchers
+ * Copyright 2022 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.vouchers.model;
+
+import ca.tweetzy.vouchers.Vouchers;
+import lombok.NonNull;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.entity.Player;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Player names for uuids, offline lookups can hit the disk or the session server so they never run on the main thread.
+ * Callbacks always run on the main thread, whichever thread asked.
+ */
+public final class PlayerNameCache {
+
+	private final Map<UUID, String> names = new ConcurrentHashMap<>();
+
+	public void remember(@NonNull final Player player) {
+		this.names.put(player.getUniqueId(), player.getName());
+	}
+
+	/**
+	 * @return the cached name, or the uuid if it hasn't been resolved yet
+	 */
+	public String getName(@NonNull final UUID uuid) {
+		return this.names.getOrDefault(uuid, uuid.toString());
+	}
+
+	/**
+	 * Looks up every name that isn't cached yet off the main thread, then runs the callback on the main thread
+	 */
+	public void resolve(@NonNull final Collection<UUID> uuids, @NonNull final Runnable then) {
+		final List<UUID> missing = uuids.stream().distinct().filter(uuid -> !this.names.containsKey(uuid)).toList();
+		if (missing.isEmpty()) {
+			runSync(then);
+			return;
+		}
+
+		Bukkit.getScheduler().runTaskAsynchronously(Vouchers.getInstance(), () -> {
+			for (UUID uuid : missing) {
+				final String name = Bukkit.getOfflinePlayer(uuid).getName();
+				this.names.put(uuid, name == null ? uuid.toString() : name);
+			}
+
+			runSync(then);
+		});
+	}
+
+	/**
+	 * Finds the uuid of a player by name off the main thread, the callback runs on the main thread and receives null if they never joined
+	 */
+	@SuppressWarnings("deprecation")
+	public void lookup(@NonNull final String name, @NonNull final Consumer<UUID> then) {
+		final Player online = Bukkit.getPlayerExact(name);
+		if (online != null) {
+			runSync(() -> then.accept(online.getUniqueId()));
+			return;
+		}
+
+		for (Map.Entry<UUID, String> cached : this.names.entrySet()) {
+			if (cached.getValue().equalsIgnoreCase(name)) {
+				final UUID found = cached.getKey();
+				runSync(() -> then.accept(found));
+				return;
+			}
+		}
+
+		Bukkit.getScheduler().runTaskAsynchronously(Vouchers.getInstance(), () -> {
+			final OfflinePlayer player = Bukkit.getOfflinePlayer(name);
+			if (!player.hasPlayedBefore()) {
+				runSync(() -> then.accept(null));
+				return;
+			}
+
+			this.names.put(player.getUniqueId(), player.getName() == null ? name : player.getName());
+			runSync(() -> then.accept(player.getUniqueId()));
+		});
+	}
+
+	private void runSync(final Runnable task) {
+		if (Bukkit.isPrimaryThread())
+			task.run();
+		else
+			Bukkit.getScheduler().runTask(Vouchers.getInstance(), task);
+	}
+}
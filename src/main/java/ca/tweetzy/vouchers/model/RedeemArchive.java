@@ -0,0 +1,80 @@
+/*
+ * Vouchers
+ * Copyright 2022 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.vouchers.model;
+
+import ca.tweetzy.vouchers.api.voucher.Redeem;
+import lombok.NonNull;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Append only gzip files holding redeems that were moved out of the database, one file per month of redeem time.
+ * Every append adds a new gzip member, which gzip readers treat as one continuous stream of csv lines.
+ */
+public final class RedeemArchive {
+
+	private static final DateTimeFormatter FILE_MONTH = DateTimeFormatter.ofPattern("yyyy-MM").withZone(ZoneOffset.UTC);
+
+	private final File folder;
+
+	public RedeemArchive(@NonNull final File folder) {
+		this.folder = folder;
+	}
+
+	/**
+	 * Writes the redeems and syncs them to disk before returning, so they can safely be deleted afterwards
+	 */
+	public void append(@NonNull final List<Redeem> redeems) throws IOException {
+		if (redeems.isEmpty()) return;
+
+		if (!this.folder.exists() && !this.folder.mkdirs())
+			throw new IOException("Could not create the archive folder " + this.folder);
+
+		final Map<String, List<Redeem>> byMonth = new TreeMap<>();
+		for (Redeem redeem : redeems)
+			byMonth.computeIfAbsent(FILE_MONTH.format(Instant.ofEpochMilli(redeem.getTime())), month -> new ArrayList<>()).add(redeem);
+
+		for (Map.Entry<String, List<Redeem>> month : byMonth.entrySet()) {
+			final File file = new File(this.folder, "redeems-" + month.getKey() + ".csv.gz");
+
+			try (FileOutputStream out = new FileOutputStream(file, true);
+				 GZIPOutputStream gzip = new GZIPOutputStream(out);
+				 Writer writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8))) {
+
+				for (Redeem redeem : month.getValue()) {
+					writer.write(redeem.getId() + "," + redeem.getUser() + "," + redeem.getVoucherId() + "," + redeem.getTime());
+					writer.write('\n');
+				}
+
+				writer.flush();
+				gzip.finish();
+				out.getFD().sync();
+			}
+		}
+	}
+}
@@ -0,0 +1,74 @@
+/*
+ * Vouchers
+ * Copyright 2022 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.vouchers.model;
+
+import ca.tweetzy.vouchers.Vouchers;
+import ca.tweetzy.vouchers.settings.Settings;
+import lombok.NonNull;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves redeems older than the retention period into the archive a chunk at a time,
+ * their counts stay behind in the rollup table so redeem limits keep working
+ */
+public final class RedeemRetentionJob implements Runnable {
+
+	private final RedeemArchive archive;
+	private final AtomicBoolean running = new AtomicBoolean();
+	private int archived;
+
+	public RedeemRetentionJob(@NonNull final File archiveFolder) {
+		this.archive = new RedeemArchive(archiveFolder);
+	}
+
+	@Override
+	public void run() {
+		final int days = Settings.REDEEM_RETENTION_DAYS.getInt();
+		if (days <= 0 || !this.running.compareAndSet(false, true)) return;
+
+		this.archived = 0;
+		nextChunk(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(days), Math.max(Settings.REDEEM_RETENTION_CHUNK_SIZE.getInt(), 1));
+	}
+
+	private void nextChunk(final long before, final int chunkSize) {
+		Vouchers.getDataManager().archiveRedeems(before, chunkSize, this.archive, (error, count) -> {
+			if (error != null) {
+				error.printStackTrace();
+				this.running.set(false);
+				return;
+			}
+
+			this.archived += count;
+
+			// every chunk is its own write, so redeems queued in between don't wait for the whole job
+			if (count >= chunkSize && Vouchers.getInstance().isEnabled()) {
+				nextChunk(before, chunkSize);
+				return;
+			}
+
+			if (this.archived > 0)
+				Vouchers.getInstance().getLogger().info("Archived " + this.archived + " redeems older than " + Settings.REDEEM_RETENTION_DAYS.getInt() + " days");
+
+			this.running.set(false);
+		});
+	}
+}
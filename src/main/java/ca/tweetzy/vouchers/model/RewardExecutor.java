@@ -0,0 +1,122 @@
+/*
+ * Vouchers
+ * Copyright 2022 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.vouchers.model;
+
+import ca.tweetzy.vouchers.Vouchers;
+import ca.tweetzy.vouchers.api.voucher.Reward;
+import ca.tweetzy.vouchers.impl.reward.CommandReward;
+import ca.tweetzy.vouchers.impl.reward.ItemReward;
+import ca.tweetzy.vouchers.settings.Settings;
+import lombok.NonNull;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.*;
+
+/**
+ * Hands out a batch of rewards at once, items go into the inventory in a single call
+ * and commands are dispatched within a per tick time budget, the rest wait for the next tick.
+ */
+public final class RewardExecutor {
+
+	private final Queue<String> commands = new ArrayDeque<>();
+	private long budgetLeft;
+
+	/**
+	 * Rolls each reward's chance and gives the ones that pass, must be called on the main thread
+	 *
+	 * @param player    is the player receiving the rewards
+	 * @param rewards   is the rewards to give
+	 * @param guarantee is if chances should be ignored
+	 */
+	public void execute(@NonNull final Player player, @NonNull final List<Reward> rewards, final boolean guarantee) {
+		// rewards sharing a delay are given together
+		final Map<Integer, List<Reward>> byDelay = new TreeMap<>();
+
+		for (Reward reward : rewards) {
+			if (!guarantee && !Chance.tryChance(reward.getChance())) continue;
+			byDelay.computeIfAbsent(Math.max(reward.getDelay(), 0), delay -> new ArrayList<>()).add(reward);
+		}
+
+		byDelay.forEach((delay, batch) -> {
+			if (delay == 0)
+				deliver(player, batch);
+			else
+				Vouchers.getRewardScheduler().schedule(player, batch, delay);
+		});
+	}
+
+	/**
+	 * Dispatches queued commands until this tick's budget runs out, scheduled every tick
+	 */
+	public void tick() {
+		this.budgetLeft = Math.max(Settings.REWARD_COMMAND_BUDGET.getInt(), 1) * 1_000_000L;
+		runCommands(false);
+	}
+
+	/**
+	 * Dispatches every queued command, used when shutting down
+	 */
+	public void drain() {
+		runCommands(true);
+	}
+
+	/**
+	 * Gives rewards straight away without rolling their chances
+	 *
+	 * @param player  is the player receiving the rewards
+	 * @param rewards is the rewards to give
+	 */
+	public void deliver(@NonNull final Player player, @NonNull final List<Reward> rewards) {
+		final List<ItemStack> items = new ArrayList<>();
+
+		for (Reward reward : rewards) {
+			if (reward instanceof final ItemReward itemReward) {
+				if (itemReward.hasItem())
+					items.add(itemReward.getItem());
+				else
+					itemReward.logMissingItem();
+			} else if (reward instanceof final CommandReward commandReward)
+				this.commands.add(commandReward.getCommand(player));
+			else
+				reward.execute(player, true);
+		}
+
+		if (!items.isEmpty()) {
+			final Collection<ItemStack> overflow = player.getInventory().addItem(items.toArray(new ItemStack[0])).values();
+			for (ItemStack item : overflow)
+				player.getWorld().dropItemNaturally(player.getLocation(), item);
+		}
+
+		runCommands(false);
+	}
+
+	private void runCommands(final boolean ignoreBudget) {
+		// always let one through so a tiny budget can't stall the queue
+		boolean first = true;
+
+		while (!this.commands.isEmpty() && (ignoreBudget || first || this.budgetLeft > 0)) {
+			final long start = System.nanoTime();
+			Bukkit.getServer().dispatchCommand(Bukkit.getServer().getConsoleSender(), this.commands.poll());
+			this.budgetLeft -= System.nanoTime() - start;
+			first = false;
+		}
+	}
+}
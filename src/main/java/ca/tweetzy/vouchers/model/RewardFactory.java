@@ -22,22 +22,86 @@ import ca.tweetzy.vouchers.api.voucher.Reward;
 import ca.tweetzy.vouchers.api.voucher.RewardType;
 import ca.tweetzy.vouchers.impl.reward.CommandReward;
 import ca.tweetzy.vouchers.impl.reward.ItemReward;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
 import lombok.NonNull;
+import lombok.SneakyThrows;
 import lombok.experimental.UtilityClass;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 @UtilityClass
 public final class RewardFactory {
 
+	// decoded reward items keyed by their encoded form, shared by every reward using the same item
+	private final Map<String, ItemStack> ITEM_TEMPLATES = new ConcurrentHashMap<>();
+
+	@SneakyThrows
 	public Reward decode(@NonNull final String json) {
-		final JsonObject object = JsonParser.parseString(json).getAsJsonObject();
+		return decode(new JsonReader(new StringReader(json)));
+	}
+
+	public Reward decode(@NonNull final JsonReader reader) throws IOException {
+		UUID id = null;
+		RewardType rewardType = null;
+		String command = null, item = null;
+		double chance = 0;
+		int delay = 0;
 
-		final RewardType rewardType = RewardType.valueOf(object.get("type").getAsString().toUpperCase());
+		reader.beginObject();
+		while (reader.hasNext()) {
+			switch (reader.nextName()) {
+				case "id" -> id = UUID.fromString(reader.nextString());
+				case "type" -> rewardType = RewardType.valueOf(reader.nextString().toUpperCase());
+				case "command" -> command = reader.nextString();
+				case "item" -> item = reader.nextString();
+				case "chance" -> chance = reader.nextDouble();
+				case "delay" -> delay = reader.nextInt();
+				default -> reader.skipValue();
+			}
+		}
+		reader.endObject();
+
+		if (rewardType == null)
+			throw new IllegalStateException("Reward is missing its type");
+
+		if (id == null)
+			id = UUID.randomUUID();
 
 		return switch (rewardType) {
-			case COMMAND -> new CommandReward(object.get("command").getAsString(), object.get("chance").getAsDouble(), object.get("delay").getAsInt());
-			case ITEM -> new ItemReward(ItemEncoder.decodeItem(object.get("item").getAsString()), object.get("chance").getAsDouble());
+			case COMMAND -> new CommandReward(id, command, chance, delay);
+			case ITEM -> new ItemReward(id, item == null ? null : decodeItemTemplate(item), chance);
 		};
 	}
+
+	public List<Reward> decodeAll(@NonNull final JsonReader reader) throws IOException {
+		final List<Reward> rewards = new ArrayList<>();
+
+		reader.beginArray();
+		while (reader.hasNext())
+			rewards.add(decode(reader));
+		reader.endArray();
+
+		return rewards;
+	}
+
+	/**
+	 * The returned item is shared, it must be cloned before it's modified or handed out
+	 *
+	 * @param encoded is the encoded item
+	 * @return the decoded item
+	 */
+	public ItemStack decodeItemTemplate(@NonNull final String encoded) {
+		return ITEM_TEMPLATES.computeIfAbsent(encoded, ItemEncoder::decodeItem);
+	}
+
+	public void clearItemTemplates() {
+		ITEM_TEMPLATES.clear();
+	}
 }
@@ -0,0 +1,133 @@
+/*
+ * Vouchers
+ * Copyright 2022 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.vouchers.model;
+
+import ca.tweetzy.feather.utils.Common;
+import ca.tweetzy.vouchers.Vouchers;
+import ca.tweetzy.vouchers.api.voucher.Reward;
+import ca.tweetzy.vouchers.impl.reward.CommandReward;
+import ca.tweetzy.vouchers.impl.reward.ItemReward;
+import lombok.NonNull;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import java.util.*;
+
+/**
+ * Holds delayed rewards in one queue ordered by due time, drained by a single task. Every entry is
+ * also stored so it survives a restart, rewards owed to offline players are given on their next join.
+ * Only touched from the main thread.
+ */
+public final class RewardScheduler {
+
+	private static final long TICK_MILLIS = 50L;
+
+	private final PriorityQueue<PendingReward> queue = new PriorityQueue<>(Comparator.comparingLong(PendingReward::due));
+	private final Map<UUID, List<PendingReward>> waiting = new HashMap<>();
+
+	// ids scheduled while a load is reading, the read may or may not see their rows
+	private Set<UUID> scheduledWhileLoading;
+
+	public void schedule(@NonNull final Player player, @NonNull final List<Reward> rewards, final int delayTicks) {
+		final long due = System.currentTimeMillis() + delayTicks * TICK_MILLIS;
+		final List<PendingReward> pending = new ArrayList<>(rewards.size());
+
+		for (Reward reward : rewards) {
+			// only the built in rewards can be stored, anything else gets a plain delayed task
+			if (!(reward instanceof ItemReward) && !(reward instanceof CommandReward)) {
+				Common.runLater(delayTicks, () -> {
+					if (player.isOnline())
+						reward.execute(player, true);
+				});
+				continue;
+			}
+
+			pending.add(new PendingReward(UUID.randomUUID(), player.getUniqueId(), due, reward));
+		}
+
+		if (pending.isEmpty()) return;
+
+		this.queue.addAll(pending);
+		if (this.scheduledWhileLoading != null)
+			pending.forEach(entry -> this.scheduledWhileLoading.add(entry.id()));
+
+		Vouchers.getDataManager().savePendingRewards(pending, null);
+	}
+
+	public void tick() {
+		if (this.queue.isEmpty()) return;
+
+		final long now = System.currentTimeMillis();
+		final Map<UUID, List<PendingReward>> due = new LinkedHashMap<>();
+
+		while (!this.queue.isEmpty() && this.queue.peek().due() <= now) {
+			final PendingReward pending = this.queue.poll();
+			due.computeIfAbsent(pending.user(), user -> new ArrayList<>()).add(pending);
+		}
+
+		due.forEach((user, rewards) -> {
+			final Player player = Bukkit.getPlayer(user);
+
+			if (player == null)
+				this.waiting.computeIfAbsent(user, id -> new ArrayList<>()).addAll(rewards);
+			else
+				deliver(player, rewards);
+		});
+	}
+
+	public void deliverWaiting(@NonNull final Player player) {
+		final List<PendingReward> rewards = this.waiting.remove(player.getUniqueId());
+		if (rewards != null)
+			deliver(player, rewards);
+	}
+
+	public void load() {
+		this.queue.clear();
+		this.waiting.clear();
+
+		final Set<UUID> scheduled = new HashSet<>();
+		this.scheduledWhileLoading = scheduled;
+
+		// hand the rows over on the main thread, the queue isn't thread safe
+		Vouchers.getDataManager().getPendingRewards((error, all) -> Bukkit.getScheduler().runTask(Vouchers.getInstance(), () -> {
+			if (this.scheduledWhileLoading == scheduled)
+				this.scheduledWhileLoading = null;
+
+			if (error != null) return;
+
+			// anything scheduled meanwhile is already queued or delivered, don't add it twice
+			for (PendingReward pending : all)
+				if (!scheduled.contains(pending.id()))
+					this.queue.add(pending);
+		}));
+	}
+
+	private void deliver(final Player player, final List<PendingReward> rewards) {
+		final List<Reward> batch = new ArrayList<>(rewards.size());
+		final List<UUID> ids = new ArrayList<>(rewards.size());
+
+		for (PendingReward pending : rewards) {
+			batch.add(pending.reward());
+			ids.add(pending.id());
+		}
+
+		Vouchers.getRewardExecutor().deliver(player, batch);
+		Vouchers.getDataManager().deletePendingRewards(ids, null);
+	}
+}
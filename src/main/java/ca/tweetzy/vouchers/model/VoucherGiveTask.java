@@ -0,0 +1,117 @@
+/*
+ * Vouchers
+ * Copyright 2022 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.vouchers.model;
+
+import ca.tweetzy.feather.utils.Common;
+import ca.tweetzy.feather.utils.Replacer;
+import ca.tweetzy.vouchers.Vouchers;
+import ca.tweetzy.vouchers.api.voucher.Voucher;
+import ca.tweetzy.vouchers.settings.Locale;
+import ca.tweetzy.vouchers.settings.Settings;
+import lombok.NonNull;
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Gives a voucher to a list of players, a few players each tick so large gives don't stall the server
+ */
+public final class VoucherGiveTask extends BukkitRunnable {
+
+	private final CommandSender sender;
+	private final Voucher voucher;
+	private final int amount;
+	private final List<UUID> targets;
+
+	private int index;
+	private int given;
+	private int lastReportedPercent;
+
+	public VoucherGiveTask(@NonNull final CommandSender sender, @NonNull final Voucher voucher, final int amount, @NonNull final List<UUID> targets) {
+		this.sender = sender;
+		this.voucher = voucher;
+		this.amount = amount;
+		this.targets = targets;
+	}
+
+	public void start() {
+		this.runTaskTimer(Vouchers.getInstance(), 0L, 1L);
+	}
+
+	@Override
+	public void run() {
+		final ItemStack item = this.voucher.buildItem();
+		final int perTick = Math.max(Settings.GIVE_PLAYERS_PER_TICK.getInt(), 1);
+
+		for (int i = 0; i < perTick && this.index < this.targets.size(); i++) {
+			final Player player = Bukkit.getPlayer(this.targets.get(this.index++));
+			if (player == null) continue;
+
+			give(player, item, this.amount);
+			this.given++;
+		}
+
+		if (this.index >= this.targets.size()) {
+			cancel();
+			Common.tell(this.sender, Replacer.replaceVariables(Locale.GIVE_COMPLETE.getString(),
+					"amount", String.valueOf(this.amount),
+					"voucher_name", this.voucher.getName(),
+					"players", String.valueOf(this.given)
+			));
+			return;
+		}
+
+		// report every quarter of the way
+		final int percent = this.index * 100 / this.targets.size();
+		if (percent / 25 > this.lastReportedPercent / 25) {
+			this.lastReportedPercent = percent;
+			Common.tell(this.sender, Replacer.replaceVariables(Locale.GIVE_PROGRESS.getString(),
+					"done", String.valueOf(this.index),
+					"total", String.valueOf(this.targets.size())
+			));
+		}
+	}
+
+	/**
+	 * Gives an amount of an item in as few stacks as possible with a single inventory call, anything left over is dropped
+	 *
+	 * @param player is the player to give the items to
+	 * @param item   is the item to give, it isn't modified
+	 * @param amount is how many to give
+	 */
+	public static void give(@NonNull final Player player, @NonNull final ItemStack item, final int amount) {
+		if (amount <= 0) return;
+
+		final int maxStack = Math.max(item.getMaxStackSize(), 1);
+		final ItemStack[] stacks = new ItemStack[(amount + maxStack - 1) / maxStack];
+
+		for (int i = 0; i < stacks.length; i++) {
+			stacks[i] = item.clone();
+			stacks[i].setAmount(Math.min(maxStack, amount - i * maxStack));
+		}
+
+		for (ItemStack overflow : player.getInventory().addItem(stacks).values())
+			player.getWorld().dropItemNaturally(player.getLocation(), overflow);
+	}
+}
@@ -18,40 +18,133 @@
 
 package ca.tweetzy.vouchers.model.manager;
 
+import ca.tweetzy.vouchers.Vouchers;
 import ca.tweetzy.vouchers.api.voucher.Voucher;
 import lombok.NonNull;
 
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Queue;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public final class CooldownManager {
 
-	private final Map<UUID, HashMap<String, Long>> cooldowns = new ConcurrentHashMap<>();
+	// one slot per second, entries further out than the wheel wait for it to come round again
+	private static final int WHEEL_SLOTS = 512;
+	private static final long SLOT_MILLIS = 1000L;
+
+	private final Map<UUID, Map<String, Long>> cooldowns = new ConcurrentHashMap<>();
+	private final Queue<Entry>[] wheel;
+	private long lastSlot = System.currentTimeMillis() / SLOT_MILLIS;
+
+	@SuppressWarnings("unchecked")
+	public CooldownManager() {
+		this.wheel = new Queue[WHEEL_SLOTS];
+		for (int i = 0; i < WHEEL_SLOTS; i++)
+			this.wheel[i] = new ConcurrentLinkedQueue<>();
+	}
 
 	public void addPlayerToCooldown(@NonNull final UUID player, @NonNull final Voucher voucher) {
-		HashMap<String, Long> voucherCooldowns = new HashMap<>();
+		if (voucher.getOptions().getCooldown() <= 0) return;
+		addCooldown(player, voucher.getId(), System.currentTimeMillis() + (voucher.getOptions().getCooldown() * 1000L));
+	}
+
+	public void addCooldown(@NonNull final UUID player, @NonNull final String voucherId, final long expiresAt) {
+		if (expiresAt <= System.currentTimeMillis()) return;
+
+		final String id = voucherId.toLowerCase();
+		// inside compute so expire() can't drop the player's map between getting it and writing to it
+		this.cooldowns.compute(player, (uuid, playerCooldowns) -> {
+			final Map<String, Long> updated = playerCooldowns == null ? new ConcurrentHashMap<>() : playerCooldowns;
+			updated.merge(id, expiresAt, Math::max);
+			return updated;
+		});
+		// rounded up, so a slot only comes due once everything in it has run out
+		this.wheel[slotOf((expiresAt + SLOT_MILLIS - 1) / SLOT_MILLIS)].add(new Entry(player, id, expiresAt));
+	}
+
+	public long remainingMillis(@NonNull final UUID player, @NonNull final String voucherId) {
+		final Map<String, Long> playerCooldowns = this.cooldowns.get(player);
+		if (playerCooldowns == null) return 0L;
+
+		final Long expiresAt = playerCooldowns.get(voucherId.toLowerCase());
+		return expiresAt == null ? 0L : Math.max(expiresAt - System.currentTimeMillis(), 0L);
+	}
+
+	/**
+	 * @return a copy of every cooldown that hasn't run out yet
+	 */
+	public Map<UUID, Map<String, Long>> snapshot() {
+		final long now = System.currentTimeMillis();
+		final Map<UUID, Map<String, Long>> snapshot = new HashMap<>();
+
+		this.cooldowns.forEach((player, playerCooldowns) -> playerCooldowns.forEach((voucherId, expiresAt) -> {
+			if (expiresAt > now)
+				snapshot.computeIfAbsent(player, uuid -> new HashMap<>()).put(voucherId, expiresAt);
+		}));
 
-		if (this.cooldowns.containsKey(player)) {
-			voucherCooldowns = this.cooldowns.get(player);
+		return snapshot;
+	}
+
+	public void load() {
+		Vouchers.getDataManager().getCooldowns((error, all) -> {
+			if (error == null)
+				all.forEach((player, playerCooldowns) -> playerCooldowns.forEach((voucherId, expiresAt) -> addCooldown(player, voucherId, expiresAt)));
+		});
+	}
+
+	/**
+	 * Advances the wheel, dropping every cooldown that has run out since the last call.
+	 * Runs off the main thread once a second.
+	 */
+	public void tick() {
+		tick(System.currentTimeMillis());
+	}
+
+	synchronized void tick(final long now) {
+		final long currentSlot = now / SLOT_MILLIS;
+
+		// if we fell behind by more than a full turn every slot is due anyway
+		final long from = Math.max(this.lastSlot + 1, currentSlot - WHEEL_SLOTS + 1);
+
+		for (long slot = from; slot <= currentSlot; slot++) {
+			final Iterator<Entry> iterator = this.wheel[slotOf(slot)].iterator();
+
+			while (iterator.hasNext()) {
+				final Entry entry = iterator.next();
+				// only entries a full turn or more away are left, they wait for the wheel to come round
+				if (entry.expiresAt() > now) continue;
+
+				iterator.remove();
+				expire(entry);
+			}
 		}
 
-		// add them
-		voucherCooldowns.put(voucher.getId(), System.currentTimeMillis() + (voucher.getOptions().getCooldown() * 1000L));
-		this.cooldowns.put(player, voucherCooldowns);
+		this.lastSlot = currentSlot;
+	}
+
+	/**
+	 * @return how many cooldowns are held, including ones that ran out but haven't been ticked away yet
+	 */
+	int heldCount() {
+		return this.cooldowns.values().stream().mapToInt(Map::size).sum();
 	}
 
-	public boolean isPlayerInCooldown(@NonNull final UUID player) {
-		return this.cooldowns.containsKey(player);
+	private void expire(@NonNull final Entry entry) {
+		this.cooldowns.computeIfPresent(entry.player(), (uuid, playerCooldowns) -> {
+			// a newer cooldown for the same voucher keeps its own wheel entry
+			playerCooldowns.remove(entry.voucherId(), entry.expiresAt());
+			return playerCooldowns.isEmpty() ? null : playerCooldowns;
+		});
 	}
 
-	public boolean isPlayerInCooldownForVoucher(@NonNull final UUID player, @NonNull final Voucher voucher) {
-		return isPlayerInCooldown(player) && this.cooldowns.get(player).containsKey(voucher.getId());
+	private int slotOf(final long slot) {
+		return (int) (slot % WHEEL_SLOTS);
 	}
 
-	public long getCooldownTime(@NonNull final UUID player, @NonNull final Voucher voucher) {
-		if (!isPlayerInCooldownForVoucher(player, voucher)) return 0L;
-		return this.cooldowns.get(player).get(voucher.getId());
+	private record Entry(UUID player, String voucherId, long expiresAt) {
 	}
 }
@@ -18,54 +18,122 @@
 
 package ca.tweetzy.vouchers.model.manager;
 
-import ca.tweetzy.feather.collection.ProbabilityCollection;
 import ca.tweetzy.feather.comp.Titles;
 import ca.tweetzy.feather.comp.enums.CompMaterial;
 import ca.tweetzy.feather.utils.Common;
 import ca.tweetzy.feather.utils.PlayerUtil;
 import ca.tweetzy.feather.utils.Replacer;
 import ca.tweetzy.vouchers.Vouchers;
+import ca.tweetzy.vouchers.api.metrics.DenialReason;
+import ca.tweetzy.vouchers.api.metrics.RedeemStage;
 import ca.tweetzy.vouchers.api.voucher.*;
 import ca.tweetzy.vouchers.gui.GUIRewardSelection;
 import ca.tweetzy.vouchers.impl.VoucherRedeem;
+import ca.tweetzy.vouchers.model.metrics.RedeemMetrics;
 import ca.tweetzy.vouchers.settings.Locale;
+import ca.tweetzy.vouchers.settings.Settings;
 import lombok.NonNull;
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
-import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
-public final class RedeemManager extends Manager<UUID, Redeem> {
+/**
+ * Keeps per player redeem counts, the redeems themselves are only kept in the database
+ * so this isn't a {@link Manager}, look them up through {@link ca.tweetzy.vouchers.database.DataManager#getRedeemPage}
+ */
+public final class RedeemManager {
 
-	@Override
-	public List<Redeem> getAll() {
-		return List.copyOf(this.contents.values());
-	}
+	// player -> lowercase voucher id -> total redeems, the history itself is only kept in the database
+	private final Map<UUID, Map<String, AtomicInteger>> redeemCounts = new ConcurrentHashMap<>();
 
-	@Override
-	public Redeem find(@NonNull UUID uuid) {
-		return this.contents.getOrDefault(uuid, null);
-	}
+	// players whose counts are in memory (or being fetched) while lazy loading is enabled
+	private final Set<UUID> loadedPlayers = ConcurrentHashMap.newKeySet();
+	private final Set<UUID> loadingPlayers = ConcurrentHashMap.newKeySet();
 
-	@Override
-	public void add(@NonNull Redeem redeem) {
-		this.contents.put(redeem.getId(), redeem);
-	}
+	// only set when a seed is configured, so random rewards can be replayed
+	private volatile Random seededRandom;
 
-	@Override
-	public void remove(@NonNull UUID uuid) {
-		this.contents.remove(uuid);
+	public void add(@NonNull Redeem redeem) {
+		getCounter(redeem.getUser(), redeem.getVoucherId()).incrementAndGet();
 	}
 
 	public int getTotalRedeems(@NonNull final UUID playerUUID, @NonNull final String voucherId) {
-		return (int) this.contents.values().stream().filter(redeem -> redeem.getUser().equals(playerUUID) && redeem.getVoucherId().equalsIgnoreCase(voucherId)).count();
+		final Map<String, AtomicInteger> playerCounts = this.redeemCounts.get(playerUUID);
+		if (playerCounts == null) return 0;
+
+		final AtomicInteger count = playerCounts.get(voucherId.toLowerCase());
+		return count == null ? 0 : count.get();
 	}
 
 	public int getTotalRedeems(@NonNull final Player player, @NonNull final Voucher voucher) {
 		return getTotalRedeems(player.getUniqueId(), voucher.getId());
 	}
 
+	/**
+	 * Atomically claims one use of a voucher for a player, the claim counts
+	 * towards the limit straight away so concurrent redeems cannot both pass.
+	 *
+	 * @return false if the player is already at the limit
+	 */
+	public boolean tryReserve(@NonNull final UUID playerUUID, @NonNull final String voucherId, final int limit) {
+		final AtomicInteger count = getCounter(playerUUID, voucherId);
+
+		int current;
+		do {
+			current = count.get();
+			if (current >= limit) return false;
+		} while (!count.compareAndSet(current, current + 1));
+
+		return true;
+	}
+
+	public void releaseReservation(@NonNull final UUID playerUUID, @NonNull final String voucherId) {
+		getCounter(playerUUID, voucherId).decrementAndGet();
+	}
+
+	public boolean isLoaded(@NonNull final UUID playerUUID) {
+		return !Settings.LAZY_REDEEM_LOADING.getBoolean() || this.loadedPlayers.contains(playerUUID);
+	}
+
+	public void loadPlayer(@NonNull final UUID playerUUID) {
+		if (isLoaded(playerUUID) || !this.loadingPlayers.add(playerUUID)) return;
+
+		Vouchers.getDataManager().getVoucherRedeemCounts(playerUUID, (error, counts) -> {
+			this.loadingPlayers.remove(playerUUID);
+
+			if (error != null) {
+				error.printStackTrace();
+				return;
+			}
+
+			final Map<String, AtomicInteger> playerCounts = new ConcurrentHashMap<>();
+			counts.forEach((voucherId, total) -> playerCounts.put(voucherId, new AtomicInteger(total)));
+
+			this.redeemCounts.put(playerUUID, playerCounts);
+			this.loadedPlayers.add(playerUUID);
+		});
+	}
+
+	public void scheduleEviction(@NonNull final UUID playerUUID) {
+		if (!Settings.LAZY_REDEEM_LOADING.getBoolean()) return;
+
+		Common.runLater(Math.max(Settings.REDEEM_EVICT_DELAY.getInt(), 0) * 20, () -> {
+			// they came back before the delay ran out
+			if (Bukkit.getPlayer(playerUUID) != null) return;
+
+			this.loadedPlayers.remove(playerUUID);
+			this.redeemCounts.remove(playerUUID);
+		});
+	}
+
 	public boolean isAtRedeemLimit(@NonNull final Player player, @NonNull final Voucher voucher) {
 		int maxVoucherUses = voucher.getOptions().getMaxUses();
 		if (maxVoucherUses <= -1) return false;
@@ -74,27 +142,56 @@ public final class RedeemManager extends Manager<UUID, Redeem> {
 	}
 
 	public void redeemVoucher(@NonNull final Player player, @NonNull final Voucher voucher, final boolean ignoreRedeemLimit, final boolean ignoreCooldown) {
+		final RedeemMetrics metrics = Vouchers.getRedeemMetrics();
+		final long redeemStart = System.nanoTime();
+		long stageStart = redeemStart;
+
 		// check permission
 		if (voucher.getOptions().isRequiresPermission() && !player.hasPermission(voucher.getOptions().getPermission())) {
+			metrics.recordDenial(DenialReason.NO_PERMISSION);
 			Common.tell(player, Locale.NOT_ALLOWED_TO_USE.getString());
 			return;
 		}
 
+		stageStart = metrics.record(RedeemStage.PERMISSION, stageStart);
+
+		// counts are fetched on join, but a redeem can race the first fetch
+		if (!isLoaded(player.getUniqueId())) {
+			metrics.recordDenial(DenialReason.DATA_LOADING);
+			loadPlayer(player.getUniqueId());
+			Common.tell(player, Locale.REDEEM_DATA_LOADING.getString());
+			return;
+		}
+
 		if (isAtRedeemLimit(player, voucher) && !ignoreRedeemLimit) {
+			metrics.recordDenial(DenialReason.REDEEM_LIMIT);
 			Common.tell(player, Locale.REDEEM_LIMIT_REACHED.getString());
 			return;
 		}
 
+		stageStart = metrics.record(RedeemStage.LIMIT, stageStart);
+
 		// check cooldown
-		if (!ignoreCooldown)
-			if (Vouchers.getCooldownManager().isPlayerInCooldown(player.getUniqueId()) && Vouchers.getCooldownManager().isPlayerInCooldownForVoucher(player.getUniqueId(), voucher)) {
-				long cooldownTime = Vouchers.getCooldownManager().getCooldownTime(player.getUniqueId(), voucher);
+		if (!ignoreCooldown) {
+			final long remainingCooldown = Vouchers.getCooldownManager().remainingMillis(player.getUniqueId(), voucher.getId());
 
-				if (System.currentTimeMillis() < cooldownTime) {
-					Common.tell(player, Replacer.replaceVariables(Locale.WAIT_FOR_COOLDOWN.getString(), "cooldown_time", String.format("%,.2f", (cooldownTime - System.currentTimeMillis()) / 1000F)));
-					return;
-				}
+			if (remainingCooldown > 0) {
+				metrics.recordDenial(DenialReason.COOLDOWN);
+				Common.tell(player, Replacer.replaceVariables(Locale.WAIT_FOR_COOLDOWN.getString(), "cooldown_time", String.format("%,.2f", remainingCooldown / 1000F)));
+				return;
 			}
+		}
+
+		stageStart = metrics.record(RedeemStage.COOLDOWN, stageStart);
+
+		final boolean limited = !ignoreRedeemLimit && voucher.getOptions().getMaxUses() > -1;
+
+		// reward select claims its use once a reward is picked, closing the menu shouldn't use it up
+		if (limited && voucher.getRewardMode() != RewardMode.REWARD_SELECT && !tryReserve(player.getUniqueId(), voucher.getId(), voucher.getOptions().getMaxUses())) {
+			metrics.recordDenial(DenialReason.REDEEM_LIMIT);
+			Common.tell(player, Locale.REDEEM_LIMIT_REACHED.getString());
+			return;
+		}
 
 		// collect titles
 		if (!voucher.getOptions().getMessages().isEmpty()) {
@@ -123,8 +220,8 @@ public final class RedeemManager extends Manager<UUID, Redeem> {
 						fadeIn,
 						stay,
 						fadeOut,
-						Common.colorize(titleMessage != null ? titleMessage.getColouredAndReplaced(player, voucher) : ""),
-						Common.colorize(subtitleMessage != null ? subtitleMessage.getColouredAndReplaced(player, voucher) : "")
+						titleMessage != null ? titleMessage.getColouredAndReplaced(player, voucher) : "",
+						subtitleMessage != null ? subtitleMessage.getColouredAndReplaced(player, voucher) : ""
 				);
 			}
 
@@ -134,45 +231,83 @@ public final class RedeemManager extends Manager<UUID, Redeem> {
 			});
 		}
 
+		stageStart = metrics.record(RedeemStage.MESSAGES, stageStart);
+
 		// rewards
 
 		switch (voucher.getRewardMode()) {
-			case AUTOMATIC -> {
-				// automatic means it will give them every reward added to the voucher
-				voucher.getRewards().forEach(reward -> reward.execute(player, false));
-				takeHand(player, voucher);
-				if (!ignoreCooldown)
-					Vouchers.getCooldownManager().addPlayerToCooldown(player.getUniqueId(), voucher);
-				registerRedeemIfApplicable(player, voucher);
-			}
+			// automatic means it will give them every reward added to the voucher
+			case AUTOMATIC -> completeRedeem(player, voucher, limited, ignoreCooldown, () -> Vouchers.getRewardExecutor().execute(player, voucher.getRewards(), false));
 			case REWARD_SELECT -> Vouchers.getGuiManager().showGUI(player, new GUIRewardSelection(voucher, selected -> {
-				takeHand(player, voucher);
 				player.closeInventory();
-				if (!ignoreCooldown)
-					Vouchers.getCooldownManager().addPlayerToCooldown(player.getUniqueId(), voucher);
-				registerRedeemIfApplicable(player, voucher);
+
+				if (limited && !tryReserve(player.getUniqueId(), voucher.getId(), voucher.getOptions().getMaxUses())) {
+					metrics.recordDenial(DenialReason.REDEEM_LIMIT);
+					Common.tell(player, Locale.REDEEM_LIMIT_REACHED.getString());
+					return;
+				}
+
+				// the time spent in the menu isn't part of the redeem
+				final long selectedStart = System.nanoTime();
+				completeRedeem(player, voucher, limited, ignoreCooldown, () -> selected.execute(player, Settings.REWARD_PICK_IS_GUARANTEED.getBoolean()));
+				metrics.record(RedeemStage.REWARDS, selectedStart);
 			}));
-			case RANDOM -> {
-				final ProbabilityCollection<Reward> rewardProbabilityCollection = new ProbabilityCollection<>();
-				voucher.getRewards().forEach(reward -> rewardProbabilityCollection.add(reward, (int) reward.getChance()));
-
-				final Reward selectedReward = rewardProbabilityCollection.get();
-				selectedReward.execute(player, false);
-				takeHand(player, voucher);
-				if (!ignoreCooldown)
-					Vouchers.getCooldownManager().addPlayerToCooldown(player.getUniqueId(), voucher);
-				registerRedeemIfApplicable(player, voucher);
-			}
+			case RANDOM -> completeRedeem(player, voucher, limited, ignoreCooldown, () -> {
+				final Reward selectedReward = voucher.pickRandomReward(getRewardRandom());
+				if (selectedReward != null)
+					selectedReward.execute(player, false);
+			});
 		}
+
+		if (voucher.getRewardMode() != RewardMode.REWARD_SELECT)
+			metrics.record(RedeemStage.REWARDS, stageStart);
+
+		metrics.record(RedeemStage.TOTAL, redeemStart);
 	}
 
 	public void registerRedeemIfApplicable(@NonNull final Player player, @NonNull final Voucher voucher) {
-		Vouchers.getDataManager().createVoucherRedeem(new VoucherRedeem(UUID.randomUUID(), player.getUniqueId(), voucher.getId(), System.currentTimeMillis()), (error, createdRedeem) -> {
-			if (error == null)
-				this.add(createdRedeem);
-			else
-				error.printStackTrace();
-		});
+		registerRedeemIfApplicable(player, voucher, false);
+	}
+
+	/**
+	 * Records a redeem and queues it to be saved
+	 *
+	 * @param reserved is if the use was already claimed through {@link #tryReserve(UUID, String, int)}
+	 */
+	public void registerRedeemIfApplicable(@NonNull final Player player, @NonNull final Voucher voucher, final boolean reserved) {
+		final Redeem redeem = new VoucherRedeem(UUID.randomUUID(), player.getUniqueId(), voucher.getId(), System.currentTimeMillis());
+
+		if (!reserved)
+			this.add(redeem);
+
+		Vouchers.getDataManager().queueVoucherRedeem(redeem);
+	}
+
+	private void completeRedeem(@NonNull final Player player, @NonNull final Voucher voucher, final boolean reserved, final boolean ignoreCooldown, @NonNull final Runnable giveRewards) {
+		try {
+			giveRewards.run();
+		} catch (RuntimeException e) {
+			// nothing was handed out, give the claimed use back
+			if (reserved)
+				releaseReservation(player.getUniqueId(), voucher.getId());
+			throw e;
+		}
+
+		takeHand(player, voucher);
+		if (!ignoreCooldown)
+			Vouchers.getCooldownManager().addPlayerToCooldown(player.getUniqueId(), voucher);
+		registerRedeemIfApplicable(player, voucher, reserved);
+		Vouchers.getRedeemMetrics().recordRedeem();
+	}
+
+	private Random getRewardRandom() {
+		final Random seeded = this.seededRandom;
+		return seeded != null ? seeded : ThreadLocalRandom.current();
+	}
+
+	private AtomicInteger getCounter(@NonNull final UUID playerUUID, @NonNull final String voucherId) {
+		// voucher ids are matched ignoring case, so every counter is keyed by the lowercase id
+		return this.redeemCounts.computeIfAbsent(playerUUID, user -> new ConcurrentHashMap<>()).computeIfAbsent(voucherId.toLowerCase(), voucher -> new AtomicInteger());
 	}
 
 	private void takeHand(@NonNull final Player player, @NonNull final Voucher voucher) {
@@ -187,13 +322,25 @@ public final class RedeemManager extends Manager<UUID, Redeem> {
 		}
 	}
 
-	@Override
 	public void load() {
-		this.contents.clear();
+		this.redeemCounts.clear();
+		this.loadedPlayers.clear();
+
+		final int seed = Settings.RANDOM_REWARD_SEED.getInt();
+		this.seededRandom = seed >= 0 ? new Random(seed) : null;
+
+		// only the players currently online are needed, the rest load on join
+		if (Settings.LAZY_REDEEM_LOADING.getBoolean()) {
+			Bukkit.getOnlinePlayers().forEach(player -> loadPlayer(player.getUniqueId()));
+			return;
+		}
 
-		Vouchers.getDataManager().getVoucherRedeems((error, all) -> {
+		// counted by the database, so startup doesn't pull every redeem row into memory. Redeems made
+		// from here on are already in the cleared counters, so only older rows are read
+		final long loadedAt = System.currentTimeMillis();
+		Vouchers.getDataManager().getAllRedeemCounts(loadedAt, (error, all) -> {
 			if (error == null)
-				all.forEach(this::add);
+				all.forEach((user, totals) -> totals.forEach((voucherId, total) -> getCounter(user, voucherId).addAndGet(total)));
 		});
 	}
 }
@@ -21,13 +21,17 @@ package ca.tweetzy.vouchers.model.manager;
 import ca.tweetzy.feather.comp.NBTEditor;
 import ca.tweetzy.vouchers.Vouchers;
 import ca.tweetzy.vouchers.api.voucher.Voucher;
+import ca.tweetzy.vouchers.model.RewardFactory;
 import lombok.NonNull;
 import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
 
 public final class VoucherManager extends Manager<String, Voucher> {
 
+	private static final String VOUCHER_TAG = "Tweetzy:Vouchers";
+
 	@Override
 	public List<Voucher> getAll() {
 		return List.copyOf(this.contents.values());
@@ -35,7 +39,7 @@ public final class VoucherManager extends Manager<String, Voucher> {
 
 	@Override
 	public Voucher find(@NonNull String key) {
-		return this.contents.getOrDefault(key, null);
+		return this.contents.getOrDefault(key.toLowerCase(), null);
 	}
 
 	@Override
@@ -48,13 +52,33 @@ public final class VoucherManager extends Manager<String, Voucher> {
 		this.contents.remove(s.toLowerCase());
 	}
 
-	public boolean isVoucher(@NonNull final ItemStack item) {
-		return NBTEditor.contains(item, "Tweetzy:Vouchers");
+	/**
+	 * Checks for the voucher tag, which stays the only source of truth so items of edited
+	 * or deleted vouchers are still guarded. Items without meta can't carry the tag, which
+	 * rules out most items before any NBT is read.
+	 */
+	public boolean isVoucher(@Nullable final ItemStack item) {
+		return item != null && item.hasItemMeta() && NBTEditor.contains(item, VOUCHER_TAG);
+	}
+
+	/**
+	 * Finds the voucher an item was built from
+	 *
+	 * @param item is the item to check
+	 * @return the voucher, or null if the item isn't a (still existing) voucher
+	 */
+	@Nullable
+	public Voucher resolve(@Nullable final ItemStack item) {
+		if (item == null || !item.hasItemMeta()) return null;
+
+		final String voucherId = NBTEditor.getString(item, VOUCHER_TAG);
+		return voucherId == null ? null : find(voucherId);
 	}
 
 	@Override
 	public void load() {
 		this.contents.clear();
+		RewardFactory.clearItemTemplates();
 
 		Vouchers.getDataManager().getVouchers((error, all) -> {
 			if (error == null)
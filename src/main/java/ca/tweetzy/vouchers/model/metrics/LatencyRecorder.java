@@ -0,0 +1,103 @@
+/*
+ * Vouchers
+ * Copyright 2022 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.vouchers.model.metrics;
+
+import ca.tweetzy.vouchers.api.metrics.RedeemMetricsSnapshot;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock free latency histogram, every power of two is split into 8 buckets
+ * so recorded values are accurate to within about 12%.
+ */
+public final class LatencyRecorder {
+
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final AtomicLong max = new AtomicLong();
+
+	public void record(final long nanos) {
+		final long value = Math.max(nanos, 0);
+
+		this.buckets.incrementAndGet(indexOf(value));
+		this.count.increment();
+		this.sum.add(value);
+		this.max.accumulateAndGet(value, Math::max);
+	}
+
+	public RedeemMetricsSnapshot.Timing snapshot() {
+		final long[] copy = new long[BUCKETS];
+		long total = 0;
+
+		for (int i = 0; i < BUCKETS; i++) {
+			copy[i] = this.buckets.get(i);
+			total += copy[i];
+		}
+
+		if (total == 0)
+			return new RedeemMetricsSnapshot.Timing(0, 0, 0, 0, 0, 0);
+
+		return new RedeemMetricsSnapshot.Timing(
+				total,
+				this.sum.sum() / Math.max(this.count.sum(), 1),
+				percentile(copy, total, 0.50),
+				percentile(copy, total, 0.95),
+				percentile(copy, total, 0.99),
+				this.max.get()
+		);
+	}
+
+	private static long percentile(final long[] buckets, final long total, final double percentile) {
+		final long rank = Math.max((long) Math.ceil(total * percentile), 1);
+
+		long seen = 0;
+		for (int i = 0; i < buckets.length; i++) {
+			seen += buckets[i];
+			if (seen >= rank)
+				return valueOf(i);
+		}
+
+		return valueOf(buckets.length - 1);
+	}
+
+	private static int indexOf(final long value) {
+		if (value < SUB_BUCKETS) return (int) value;
+
+		final int exponent = 63 - Long.numberOfLeadingZeros(value);
+		final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	// the middle of the range a bucket covers
+	private static long valueOf(final int index) {
+		if (index < SUB_BUCKETS) return index;
+
+		final int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		final long width = 1L << (exponent - SUB_BUCKET_BITS);
+		final long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+		return lower + width / 2;
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * Vouchers
+ * Copyright 2022 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.vouchers.model.metrics;
+
+import ca.tweetzy.vouchers.api.metrics.DenialReason;
+import ca.tweetzy.vouchers.api.metrics.RedeemMetricsSnapshot;
+import ca.tweetzy.vouchers.api.metrics.RedeemStage;
+import com.google.gson.stream.JsonWriter;
+import lombok.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class RedeemMetrics {
+
+	private final Map<RedeemStage, LatencyRecorder> stages = new EnumMap<>(RedeemStage.class);
+	private final Map<DenialReason, LongAdder> denials = new EnumMap<>(DenialReason.class);
+	private final LongAdder redeems = new LongAdder();
+	private final LongAdder databaseFailures = new LongAdder();
+
+	public RedeemMetrics() {
+		for (RedeemStage stage : RedeemStage.values())
+			this.stages.put(stage, new LatencyRecorder());
+
+		for (DenialReason reason : DenialReason.values())
+			this.denials.put(reason, new LongAdder());
+	}
+
+	/**
+	 * Records the time since a stage started
+	 *
+	 * @param stage      is the stage that just finished
+	 * @param startNanos is the {@link System#nanoTime()} the stage started at
+	 * @return the current time, so it can be used as the start of the next stage
+	 */
+	public long record(@NonNull final RedeemStage stage, final long startNanos) {
+		final long now = System.nanoTime();
+		this.stages.get(stage).record(now - startNanos);
+		return now;
+	}
+
+	public void recordRedeem() {
+		this.redeems.increment();
+	}
+
+	public void recordDenial(@NonNull final DenialReason reason) {
+		this.denials.get(reason).increment();
+	}
+
+	public void recordDatabaseFailure() {
+		this.databaseFailures.increment();
+	}
+
+	public RedeemMetricsSnapshot snapshot() {
+		final Map<DenialReason, Long> denialCounts = new EnumMap<>(DenialReason.class);
+		this.denials.forEach((reason, count) -> denialCounts.put(reason, count.sum()));
+
+		final Map<RedeemStage, RedeemMetricsSnapshot.Timing> timings = new EnumMap<>(RedeemStage.class);
+		this.stages.forEach((stage, recorder) -> timings.put(stage, recorder.snapshot()));
+
+		return new RedeemMetricsSnapshot(this.redeems.sum(), Collections.unmodifiableMap(denialCounts), this.databaseFailures.sum(), Collections.unmodifiableMap(timings));
+	}
+
+	/**
+	 * Writes a snapshot as json, the file is replaced in one move so a reader never sees half of it
+	 *
+	 * @param file is the file to write to
+	 */
+	public void dump(@NonNull final File file) throws IOException {
+		final RedeemMetricsSnapshot snapshot = snapshot();
+		final File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+
+		try (Writer out = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8); JsonWriter writer = new JsonWriter(out)) {
+			writer.setIndent("  ");
+			writer.beginObject();
+			writer.name("time").value(System.currentTimeMillis());
+			writer.name("redeems").value(snapshot.redeems());
+			writer.name("databaseFailures").value(snapshot.databaseFailures());
+
+			writer.name("denials").beginObject();
+			for (Map.Entry<DenialReason, Long> entry : snapshot.denials().entrySet())
+				writer.name(entry.getKey().name().toLowerCase()).value(entry.getValue());
+			writer.endObject();
+
+			writer.name("stages").beginObject();
+			for (Map.Entry<RedeemStage, RedeemMetricsSnapshot.Timing> entry : snapshot.timings().entrySet()) {
+				final RedeemMetricsSnapshot.Timing timing = entry.getValue();
+
+				writer.name(entry.getKey().name().toLowerCase()).beginObject();
+				writer.name("count").value(timing.count());
+				writer.name("meanMicros").value(TimeUnit.NANOSECONDS.toMicros(timing.mean()));
+				writer.name("p50Micros").value(TimeUnit.NANOSECONDS.toMicros(timing.p50()));
+				writer.name("p95Micros").value(TimeUnit.NANOSECONDS.toMicros(timing.p95()));
+				writer.name("p99Micros").value(TimeUnit.NANOSECONDS.toMicros(timing.p99()));
+				writer.name("maxMicros").value(TimeUnit.NANOSECONDS.toMicros(timing.max()));
+				writer.endObject();
+			}
+			writer.endObject();
+			writer.endObject();
+		}
+
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+}
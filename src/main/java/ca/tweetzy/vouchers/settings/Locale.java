@@ -31,9 +31,15 @@ public final class Locale {
 	public static final ConfigEntry VOUCHER_EXISTS_ALREADY = new ConfigEntry(config, "Voucher Already Exists", "&cA voucher with that id already exists");
 	public static final ConfigEntry NOT_A_NUMBER = new ConfigEntry(config, "Not A Number", "&cThat is not a valid number!");
 	public static final ConfigEntry PLAYER_OFFLINE = new ConfigEntry(config, "Player Offline", "&cThat player is not currently online!");
+	public static final ConfigEntry PLAYER_NOT_FOUND = new ConfigEntry(config, "Player Not Found", "&cCould not find a player with that name!");
 	public static final ConfigEntry REDEEM_LIMIT_REACHED = new ConfigEntry(config, "Redeem Limit Reached", "&cYou cannot redeem that voucher anymore!");
 	public static final ConfigEntry NOT_ALLOWED_TO_USE = new ConfigEntry(config, "Not Allowed To Use", "&cYou are not allowed to use that voucher");
 	public static final ConfigEntry WAIT_FOR_COOLDOWN = new ConfigEntry(config, "Wait For Cooldown", "&cYou can redeem that voucher in &4%cooldown_time% &cseconds");
+	public static final ConfigEntry REDEEM_DATA_LOADING = new ConfigEntry(config, "Redeem Data Loading", "&cYour voucher data is still loading, try again in a moment");
+	public static final ConfigEntry VOUCHER_NOT_FOUND = new ConfigEntry(config, "Voucher Not Found", "&cCould not find a voucher with that id!");
+	public static final ConfigEntry GIVE_PROGRESS = new ConfigEntry(config, "Give Progress", "&7Giving vouchers... &e%done%&7/&e%total% &7players");
+	public static final ConfigEntry GIVE_COMPLETE = new ConfigEntry(config, "Give Complete", "&aGave &e%amount%x %voucher_name% &ato &e%players% &aplayer(s)");
+	public static final ConfigEntry BROADCAST_MERGED_PLAYERS = new ConfigEntry(config, "Broadcast Merged Players", "%players% and %others% others");
 
 
 	public static final ConfigEntry GUI_CONFIRM_TITLE = new ConfigEntry(config, "Gui.Confirm.Title", "&bVouchers &8> &7Confirm Action");
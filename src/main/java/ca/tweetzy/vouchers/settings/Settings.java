@@ -29,6 +29,40 @@ public final class Settings {
 	public static final ConfigEntry PREFIX = new ConfigEntry(config, "prefix", "<GRADIENT:fc67fa>&lVouchers</GRADIENT:f4c4f3> &8»").withComment("The global prefix for the plugin");
 	public static final ConfigEntry LANGUAGE = new ConfigEntry(config, "language", "english").withComment("The default language for the plugin");
 	public static final ConfigEntry REWARD_PICK_IS_GUARANTEED = new ConfigEntry(config, "reward select always gives", true).withComment("If true, the reward picker menu will ignore reward chances");
+	public static final ConfigEntry REWARD_COMMAND_BUDGET = new ConfigEntry(config, "reward command budget", 5).withComment("In milliseconds, how long reward commands may run each tick, the rest are run on the following ticks");
+	public static final ConfigEntry RANDOM_REWARD_SEED = new ConfigEntry(config, "random reward seed", -1).withComment("If 0 or higher, random rewards are picked from a generator with this seed so the picks can be replayed, -1 picks truly at random");
+
+	public static final ConfigEntry DATABASE_TYPE = new ConfigEntry(config, "database.type", "sqlite").withComment("Either sqlite or mysql, mysql also works with mariadb and lets several servers share the same data");
+	public static final ConfigEntry DATABASE_HOST = new ConfigEntry(config, "database.host", "localhost");
+	public static final ConfigEntry DATABASE_PORT = new ConfigEntry(config, "database.port", 3306);
+	public static final ConfigEntry DATABASE_NAME = new ConfigEntry(config, "database.name", "vouchers");
+	public static final ConfigEntry DATABASE_USERNAME = new ConfigEntry(config, "database.username", "root");
+	public static final ConfigEntry DATABASE_PASSWORD = new ConfigEntry(config, "database.password", "");
+	public static final ConfigEntry DATABASE_USE_SSL = new ConfigEntry(config, "database.use ssl", false);
+	public static final ConfigEntry DATABASE_JDBC_URL = new ConfigEntry(config, "database.jdbc url", "").withComment("If set, used instead of the host, port and name above");
+	public static final ConfigEntry DATABASE_POOL_SIZE = new ConfigEntry(config, "database.pool size", 10).withComment("The most connections the pool keeps open");
+	public static final ConfigEntry DATABASE_STATEMENT_CACHE_SIZE = new ConfigEntry(config, "database.statement cache size", 250).withComment("How many prepared statements the driver caches per connection, 0 to disable");
+	public static final ConfigEntry DATABASE_REWRITE_BATCHED_STATEMENTS = new ConfigEntry(config, "database.rewrite batched statements", true).withComment("If true, batched inserts are sent as a single multi row statement");
+	public static final ConfigEntry DATABASE_READ_CONNECTIONS = new ConfigEntry(config, "database.read connections", 2).withComment("How many lookups can run at once without waiting on writes");
+
+	public static final ConfigEntry LAZY_REDEEM_LOADING = new ConfigEntry(config, "redeem history.lazy loading", false).withComment("If true, redeem counts are only loaded for players while they are online instead of loading the entire history on startup");
+	public static final ConfigEntry REDEEM_EVICT_DELAY = new ConfigEntry(config, "redeem history.evict delay", 300).withComment("When lazy loading is enabled, how many seconds after a player quits their redeem counts are dropped from memory");
+	public static final ConfigEntry REDEEM_WRITE_BATCH_SIZE = new ConfigEntry(config, "redeem history.write batch size", 250).withComment("How many redeems are written to the database in a single batch");
+	public static final ConfigEntry REDEEM_WRITE_FLUSH_INTERVAL = new ConfigEntry(config, "redeem history.write flush interval", 40).withComment("In ticks, how often queued redeems are written to the database if the batch size isn't reached");
+	public static final ConfigEntry REDEEM_RETENTION_DAYS = new ConfigEntry(config, "redeem history.retention days", 0).withComment("Redeems older than this many days are moved to compressed files in the archive folder, their counts are kept so limits still work. 0 keeps everything in the database");
+	public static final ConfigEntry REDEEM_RETENTION_CHUNK_SIZE = new ConfigEntry(config, "redeem history.retention chunk size", 500).withComment("How many old redeems are archived per transaction, smaller chunks hold the database lock for less time");
+	public static final ConfigEntry REDEEM_RETENTION_INTERVAL = new ConfigEntry(config, "redeem history.retention interval", 60).withComment("In minutes, how often old redeems are checked for archiving");
+
+	public static final ConfigEntry COOLDOWN_SAVE_INTERVAL = new ConfigEntry(config, "cooldowns.save interval", 300).withComment("In seconds, how often active cooldowns are saved so they survive a restart");
+
+	public static final ConfigEntry GIVE_PLAYERS_PER_TICK = new ConfigEntry(config, "give all players per tick", 20).withComment("How many players /vouchers give * hands vouchers to each tick");
+
+	public static final ConfigEntry BROADCAST_MERGE_WINDOW = new ConfigEntry(config, "broadcasts.merge window", 20).withComment("In ticks, broadcasts for the same voucher message within this window are sent as one message");
+	public static final ConfigEntry BROADCAST_MERGE_NAMES = new ConfigEntry(config, "broadcasts.merged names", 3).withComment("How many player names a merged broadcast lists before saying how many others redeemed");
+	public static final ConfigEntry BROADCAST_RATE_LIMIT = new ConfigEntry(config, "broadcasts.rate limit", 0).withComment("In seconds, the least time between broadcasts for the same voucher, redeems in between are merged into the next one, 0 to disable");
+
+	public static final ConfigEntry METRICS_DUMP_INTERVAL = new ConfigEntry(config, "metrics.dump interval", 0).withComment("In seconds, how often redeem metrics are written to the dump file, 0 to disable");
+	public static final ConfigEntry METRICS_DUMP_FILE = new ConfigEntry(config, "metrics.dump file", "metrics.json").withComment("The file inside the plugin folder redeem metrics are written to");
 
 	public static boolean setup() {
 		return config.init();
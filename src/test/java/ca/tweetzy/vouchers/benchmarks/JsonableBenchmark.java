@@ -0,0 +1,171 @@
+/*
+ * Vouchers
+ * Copyright 2022 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.vouchers.benchmarks;
+
+import ca.tweetzy.vouchers.api.voucher.Message;
+import ca.tweetzy.vouchers.api.voucher.MessageType;
+import ca.tweetzy.vouchers.api.voucher.Reward;
+import ca.tweetzy.vouchers.impl.VoucherMessage;
+import ca.tweetzy.vouchers.impl.VoucherSettings;
+import ca.tweetzy.vouchers.impl.reward.CommandReward;
+import ca.tweetzy.vouchers.model.RewardFactory;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the old tree based json path (build a JsonObject, toString it, parse it again to nest it)
+ * with the streaming writeTo / JsonReader path. Run with "-prof gc" to see the allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonableBenchmark {
+
+	@Param({"5", "50"})
+	public int size;
+
+	private VoucherSettings options;
+	private List<Reward> rewards;
+	private List<Message> messages;
+	private String rewardJson;
+
+	@Setup
+	public void setup() {
+		this.options = new VoucherSettings();
+		this.rewards = new ArrayList<>();
+		this.messages = new ArrayList<>();
+
+		for (int i = 0; i < this.size; i++) {
+			this.rewards.add(new CommandReward("eco give %player% " + i, 50D, 20 * i));
+			this.messages.add(new VoucherMessage(MessageType.CHAT, "&aYou redeemed &e%voucher_name% &7#" + i, 20, 40, 20));
+		}
+
+		this.rewardJson = writeRewardsStreaming();
+	}
+
+	@Benchmark
+	public String writeTree() {
+		final JsonObject object = new JsonObject();
+		object.addProperty("maxUses", this.options.getMaxUses());
+		object.addProperty("cooldown", this.options.getCooldown());
+		object.addProperty("glowing", this.options.isGlowing());
+		object.addProperty("askConfirm", this.options.isAskConfirm());
+		object.addProperty("removeOnUse", this.options.isRemoveOnUse());
+		object.addProperty("requiresPermission", this.options.isRequiresPermission());
+		object.addProperty("permission", this.options.getPermission());
+
+		final JsonArray messageArray = new JsonArray();
+		for (Message message : this.messages) {
+			final JsonObject messageObject = new JsonObject();
+			messageObject.addProperty("id", message.getId().toString());
+			messageObject.addProperty("type", message.getMessageType().name());
+			messageObject.addProperty("fadeIn", message.getFadeInDuration());
+			messageObject.addProperty("stay", message.getStayDuration());
+			messageObject.addProperty("fadeOut", message.getFadeOutDuration());
+			messageObject.addProperty("message", message.getMessage());
+			messageArray.add(JsonParser.parseString(messageObject.toString()));
+		}
+		object.add("messages", messageArray);
+
+		final JsonArray rewardArray = new JsonArray();
+		for (Reward reward : this.rewards) {
+			final CommandReward commandReward = (CommandReward) reward;
+			final JsonObject rewardObject = new JsonObject();
+			rewardObject.addProperty("id", reward.getId().toString());
+			rewardObject.addProperty("command", commandReward.getCommand());
+			rewardObject.addProperty("chance", reward.getChance());
+			rewardObject.addProperty("delay", reward.getDelay());
+			rewardObject.addProperty("type", reward.getType().name());
+			rewardArray.add(JsonParser.parseString(rewardObject.toString()));
+		}
+		object.add("rewards", rewardArray);
+
+		return object.toString();
+	}
+
+	@Benchmark
+	public String writeStreaming() throws IOException {
+		final StringWriter out = new StringWriter();
+		final JsonWriter writer = new JsonWriter(out);
+
+		writer.beginObject();
+		writer.name("options");
+		this.options.writeTo(writer);
+
+		writer.name("messages").beginArray();
+		for (Message message : this.messages)
+			message.writeTo(writer);
+		writer.endArray();
+
+		writer.name("rewards").beginArray();
+		for (Reward reward : this.rewards)
+			reward.writeTo(writer);
+		writer.endArray();
+		writer.endObject();
+
+		return out.toString();
+	}
+
+	@Benchmark
+	public List<Reward> readTree() {
+		final List<Reward> decoded = new ArrayList<>();
+
+		for (var element : JsonParser.parseString(this.rewardJson).getAsJsonArray()) {
+			final JsonObject object = element.getAsJsonObject();
+			decoded.add(new CommandReward(object.get("command").getAsString(), object.get("chance").getAsDouble(), object.get("delay").getAsInt()));
+		}
+
+		return decoded;
+	}
+
+	@Benchmark
+	public List<Reward> readStreaming() throws IOException {
+		return RewardFactory.decodeAll(new JsonReader(new StringReader(this.rewardJson)));
+	}
+
+	private String writeRewardsStreaming() {
+		try {
+			final StringWriter out = new StringWriter();
+			final JsonWriter writer = new JsonWriter(out);
+
+			writer.beginArray();
+			for (Reward reward : this.rewards)
+				reward.writeTo(writer);
+			writer.endArray();
+
+			return out.toString();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * Vouchers
+ * Copyright 2022 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.vouchers.benchmarks;
+
+import ca.tweetzy.vouchers.api.voucher.Reward;
+import ca.tweetzy.vouchers.api.voucher.VoucherOptions;
+import ca.tweetzy.vouchers.impl.VoucherRedeem;
+import ca.tweetzy.vouchers.impl.VoucherSettings;
+import ca.tweetzy.vouchers.impl.reward.CommandReward;
+import ca.tweetzy.vouchers.model.AliasSampler;
+import ca.tweetzy.vouchers.model.RewardFactory;
+import ca.tweetzy.vouchers.model.manager.CooldownManager;
+import ca.tweetzy.vouchers.model.manager.RedeemManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The server independent part of a redeem, counters, cooldowns, reward picks and decoding
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedeemBenchmark {
+
+	@Param({"1000", "50000"})
+	public int players;
+
+	@Param({"20"})
+	public int vouchers;
+
+	private final RedeemManager redeemManager = new RedeemManager();
+	private final CooldownManager cooldownManager = new CooldownManager();
+
+	private UUID[] playerIds;
+	private String[] voucherIds;
+
+	private AliasSampler<Reward> sampler;
+	private String rewardJson;
+	private String optionsJson;
+
+	@Setup
+	public void setup() {
+		this.playerIds = new UUID[this.players];
+		this.voucherIds = new String[this.vouchers];
+
+		for (int i = 0; i < this.vouchers; i++)
+			this.voucherIds[i] = "voucher_" + i;
+
+		final long expiresAt = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1);
+		for (int i = 0; i < this.players; i++) {
+			this.playerIds[i] = UUID.randomUUID();
+
+			for (int j = 0; j < 3; j++) {
+				final String voucherId = this.voucherIds[(i + j) % this.vouchers];
+				this.redeemManager.add(new VoucherRedeem(UUID.randomUUID(), this.playerIds[i], voucherId, System.currentTimeMillis()));
+				this.cooldownManager.addCooldown(this.playerIds[i], voucherId, expiresAt);
+			}
+		}
+
+		final List<Reward> rewards = new ArrayList<>();
+		for (int i = 0; i < 10; i++)
+			rewards.add(new CommandReward("eco give %player% " + i * 100, 5D + i * 10, 0));
+
+		this.sampler = AliasSampler.of(rewards, Reward::getChance);
+		this.rewardJson = rewards.get(0).toJsonString();
+		this.optionsJson = new VoucherSettings().toJsonString();
+	}
+
+	@Benchmark
+	public int getTotalRedeems() {
+		final ThreadLocalRandom random = ThreadLocalRandom.current();
+		return this.redeemManager.getTotalRedeems(this.playerIds[random.nextInt(this.players)], this.voucherIds[random.nextInt(this.vouchers)]);
+	}
+
+	@Benchmark
+	public boolean reserveAndRelease() {
+		final ThreadLocalRandom random = ThreadLocalRandom.current();
+		final UUID player = this.playerIds[random.nextInt(this.players)];
+		final String voucherId = this.voucherIds[random.nextInt(this.vouchers)];
+
+		final boolean reserved = this.redeemManager.tryReserve(player, voucherId, Integer.MAX_VALUE);
+		if (reserved)
+			this.redeemManager.releaseReservation(player, voucherId);
+
+		return reserved;
+	}
+
+	@Benchmark
+	public long cooldownRemaining() {
+		final ThreadLocalRandom random = ThreadLocalRandom.current();
+		return this.cooldownManager.remainingMillis(this.playerIds[random.nextInt(this.players)], this.voucherIds[random.nextInt(this.vouchers)]);
+	}
+
+	@Benchmark
+	public Reward pickReward() {
+		return this.sampler.sample(ThreadLocalRandom.current());
+	}
+
+	@Benchmark
+	public Reward decodeReward() {
+		return RewardFactory.decode(this.rewardJson);
+	}
+
+	@Benchmark
+	public VoucherOptions decodeOptions() {
+		return VoucherSettings.decode(this.optionsJson);
+	}
+}
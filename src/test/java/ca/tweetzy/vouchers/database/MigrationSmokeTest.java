@@ -0,0 +1,196 @@
+/*
+ * Vouchers
+ * Copyright 2022 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.vouchers.database;
+
+import ca.tweetzy.feather.database.DataMigration;
+import ca.tweetzy.vouchers.database.migrations.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.*;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs every migration against H2 in MySQL mode, the closest thing to a real MySQL server a unit test can get.
+ * Checked against H2 2.1.214, other versions treat some MySQL syntax differently.
+ */
+class MigrationSmokeTest {
+
+	private static final String PREFIX = "vouchers_";
+
+	private final List<DataMigration> migrations = List.of(
+			new _1_InitialMigration(),
+			new _2_RedeemUserIndexMigration(),
+			new _3_CooldownMigration(),
+			new _4_NormalizedRewardMigration(),
+			new _5_PendingRewardMigration(),
+			new _6_RedeemCompositeIndexMigration(),
+			new _7_RedeemRollupMigration()
+	);
+
+	private Connection connection;
+
+	@BeforeEach
+	void open() throws SQLException {
+		this.connection = DriverManager.getConnection("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;NON_KEYWORDS=USER");
+	}
+
+	@AfterEach
+	void close() throws SQLException {
+		this.connection.close();
+	}
+
+	@Test
+	void h2IsTreatedAsMySql() throws SQLException {
+		assertEquals(SqlDialect.MYSQL, SqlDialect.of(this.connection));
+	}
+
+	@Test
+	void everyMigrationApplies() throws SQLException {
+		migrate(0, this.migrations.size());
+
+		for (String table : List.of("voucher", "voucher_redeem", "voucher_cooldown", "voucher_reward", "voucher_message", "voucher_pending_reward", "voucher_redeem_rollup"))
+			assertEquals(0, count(table), table);
+	}
+
+	@Test
+	void oldUserIndexIsDropped() throws SQLException {
+		migrate(0, this.migrations.size());
+
+		try (Statement statement = this.connection.createStatement()) {
+			assertThrows(SQLException.class, () -> statement.execute(SqlDialect.MYSQL.dropIndex(PREFIX + "voucher_redeem_user", PREFIX + "voucher_redeem")));
+		}
+	}
+
+	@Test
+	void timeColumnsHoldMillis() throws SQLException {
+		migrate(0, this.migrations.size());
+		final long millis = System.currentTimeMillis() + 365L * 24 * 60 * 60 * 1000;
+
+		try (PreparedStatement redeem = this.connection.prepareStatement("INSERT INTO " + PREFIX + "voucher_redeem (id, user, voucher, time) VALUES (?, ?, ?, ?)");
+			 PreparedStatement cooldown = this.connection.prepareStatement("INSERT INTO " + PREFIX + "voucher_cooldown (user, voucher, expires) VALUES (?, ?, ?)");
+			 PreparedStatement pending = this.connection.prepareStatement("INSERT INTO " + PREFIX + "voucher_pending_reward (id, user, due, reward) VALUES (?, ?, ?, ?)")) {
+			final String user = UUID.randomUUID().toString();
+
+			redeem.setString(1, UUID.randomUUID().toString());
+			redeem.setString(2, user);
+			redeem.setString(3, "money");
+			redeem.setLong(4, millis);
+			redeem.executeUpdate();
+
+			cooldown.setString(1, user);
+			cooldown.setString(2, "money");
+			cooldown.setLong(3, millis);
+			cooldown.executeUpdate();
+
+			pending.setString(1, UUID.randomUUID().toString());
+			pending.setString(2, user);
+			pending.setLong(3, millis);
+			pending.setString(4, "{}");
+			pending.executeUpdate();
+		}
+
+		assertEquals(millis, singleLong("SELECT time FROM " + PREFIX + "voucher_redeem"));
+		assertEquals(millis, singleLong("SELECT expires FROM " + PREFIX + "voucher_cooldown"));
+		assertEquals(millis, singleLong("SELECT due FROM " + PREFIX + "voucher_pending_reward"));
+	}
+
+	@Test
+	void existingRewardsAndMessagesMoveToTheirOwnTables() throws SQLException {
+		migrate(0, 3);
+
+		try (PreparedStatement statement = this.connection.prepareStatement("INSERT INTO " + PREFIX + "voucher (id, name, description, reward_mode, item, options, rewards) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+			statement.setString(1, "money");
+			statement.setString(2, "Money");
+			statement.setString(3, "");
+			statement.setString(4, "AUTOMATIC");
+			statement.setString(5, "");
+			statement.setString(6, "{\"maxUses\":-1,\"messages\":[{\"type\":\"chat\",\"message\":\"Enjoy\",\"fadeIn\":20,\"stay\":40,\"fadeOut\":20}]}");
+			statement.setString(7, "[{\"type\":\"command\",\"command\":\"eco give %player% 500\",\"chance\":50.0,\"delay\":20},{\"type\":\"ITEM\",\"item\":\"encoded\",\"chance\":25.0}]");
+			statement.executeUpdate();
+		}
+
+		migrate(3, this.migrations.size());
+
+		assertEquals(2, count("voucher_reward"));
+		assertEquals(1, count("voucher_message"));
+		assertEquals(20, singleLong("SELECT delay FROM " + PREFIX + "voucher_reward WHERE position = 0"));
+		assertEquals(0, singleLong("SELECT delay FROM " + PREFIX + "voucher_reward WHERE position = 1"));
+
+		try (Statement statement = this.connection.createStatement();
+			 ResultSet resultSet = statement.executeQuery("SELECT options, rewards FROM " + PREFIX + "voucher")) {
+			assertTrue(resultSet.next());
+			assertFalse(resultSet.getString("options").contains("messages"));
+			assertEquals("[]", resultSet.getString("rewards"));
+		}
+	}
+
+	@Test
+	void cooldownSavesUpsertAndOnlyDropExpiredRows() throws SQLException {
+		migrate(0, this.migrations.size());
+		final long now = System.currentTimeMillis();
+		final String otherServer = UUID.randomUUID().toString();
+		final String user = UUID.randomUUID().toString();
+
+		// the same statements DataManager#saveCooldowns runs
+		replaceCooldown(otherServer, "money", now + 60_000L);
+		replaceCooldown(user, "money", now - 1L);
+		replaceCooldown(user, "crate", now + 60_000L);
+		replaceCooldown(user, "crate", now + 120_000L);
+
+		try (PreparedStatement delete = this.connection.prepareStatement("DELETE FROM " + PREFIX + "voucher_cooldown WHERE expires <= ?")) {
+			delete.setLong(1, now);
+			delete.executeUpdate();
+		}
+
+		assertEquals(2, count("voucher_cooldown"));
+		assertEquals(now + 120_000L, singleLong("SELECT expires FROM " + PREFIX + "voucher_cooldown WHERE voucher = 'crate'"));
+		assertEquals(now + 60_000L, singleLong("SELECT expires FROM " + PREFIX + "voucher_cooldown WHERE voucher = 'money'"));
+	}
+
+	private void replaceCooldown(final String user, final String voucher, final long expires) throws SQLException {
+		try (PreparedStatement statement = this.connection.prepareStatement("REPLACE INTO " + PREFIX + "voucher_cooldown (user, voucher, expires) VALUES (?, ?, ?)")) {
+			statement.setString(1, user);
+			statement.setString(2, voucher);
+			statement.setLong(3, expires);
+			statement.executeUpdate();
+		}
+	}
+
+	private void migrate(final int from, final int to) throws SQLException {
+		for (DataMigration migration : this.migrations.subList(from, to))
+			migration.migrate(this.connection, PREFIX);
+	}
+
+	private long count(final String table) throws SQLException {
+		return singleLong("SELECT COUNT(*) FROM " + PREFIX + table);
+	}
+
+	private long singleLong(final String query) throws SQLException {
+		try (Statement statement = this.connection.createStatement();
+			 ResultSet resultSet = statement.executeQuery(query)) {
+			assertTrue(resultSet.next());
+			return resultSet.getLong(1);
+		}
+	}
+}
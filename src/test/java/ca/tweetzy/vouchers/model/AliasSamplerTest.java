@@ -0,0 +1,73 @@
+/*
+ * Vouchers
+ * Copyright 2022 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.vouchers.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AliasSamplerTest {
+
+	@Test
+	void emptySamplerPicksNothing() {
+		final AliasSampler<String> sampler = AliasSampler.of(List.of(), option -> 1);
+
+		assertTrue(sampler.isEmpty());
+		assertNull(sampler.sample(new Random(1)));
+	}
+
+	@Test
+	void unusableWeightsAreNeverPicked() {
+		final Map<String, Double> weights = Map.of("zero", 0D, "negative", -5D, "nan", Double.NaN, "infinite", Double.POSITIVE_INFINITY, "only", 1D);
+		final AliasSampler<String> sampler = AliasSampler.of(List.of("zero", "negative", "nan", "infinite", "only"), weights::get);
+		final Random random = new Random(7);
+
+		for (int i = 0; i < 1_000; i++)
+			assertEquals("only", sampler.sample(random));
+	}
+
+	@Test
+	void picksFollowTheWeights() {
+		final List<Double> weights = List.of(10D, 20D, 30D, 40D);
+		final AliasSampler<Double> sampler = AliasSampler.of(weights, Double::doubleValue);
+		final Random random = new Random(42);
+
+		final int samples = 200_000;
+		final int[] counts = new int[weights.size()];
+		for (int i = 0; i < samples; i++)
+			counts[weights.indexOf(sampler.sample(random))]++;
+
+		for (int i = 0; i < weights.size(); i++)
+			assertEquals(weights.get(i) / 100D, counts[i] / (double) samples, 0.01);
+	}
+
+	@Test
+	void seededRandomsGiveTheSamePicks() {
+		final AliasSampler<Integer> sampler = AliasSampler.of(List.of(1, 2, 3, 4, 5), Integer::doubleValue);
+		final Random first = new Random(99);
+		final Random second = new Random(99);
+
+		for (int i = 0; i < 100; i++)
+			assertEquals(sampler.sample(first), sampler.sample(second));
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * Vouchers
+ * Copyright 2022 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.vouchers.model;
+
+import ca.tweetzy.vouchers.api.voucher.Reward;
+import ca.tweetzy.vouchers.impl.reward.ItemReward;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemEncoderTest {
+
+	@Test
+	void legacyItemsAreRecognised() {
+		assertTrue(ItemEncoder.isLegacy("i:\n  ==: org.bukkit.inventory.ItemStack\n"));
+		assertFalse(ItemEncoder.isLegacy(Base64.getEncoder().encodeToString(new byte[]{1, 2, 3})));
+	}
+
+	@Test
+	void invalidBase64DecodesToNull() {
+		assertNull(ItemEncoder.decodeItem("not base64 at all!"));
+	}
+
+	@Test
+	void unknownVersionDecodesToNull() {
+		assertNull(ItemEncoder.decodeItem(Base64.getEncoder().encodeToString(new byte[]{2, 0, 0, 0})));
+	}
+
+	@Test
+	void truncatedItemDecodesToNull() {
+		assertNull(ItemEncoder.decodeItem(Base64.getEncoder().encodeToString(new byte[]{1})));
+		assertNull(ItemEncoder.decodeItem(Base64.getEncoder().encodeToString(new byte[]{1, 0, 0, 0})));
+	}
+
+	@Test
+	void itemRewardWithoutAnItemStillDecodes() {
+		final Reward reward = RewardFactory.decode("{\"type\":\"ITEM\",\"chance\":50.0}");
+
+		assertTrue(reward instanceof ItemReward);
+		assertNull(((ItemReward) reward).getItem());
+	}
+}
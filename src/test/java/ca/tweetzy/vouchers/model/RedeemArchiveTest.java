@@ -0,0 +1,97 @@
+/*
+ * Vouchers
+ * Copyright 2022 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.vouchers.model;
+
+import ca.tweetzy.vouchers.api.voucher.Redeem;
+import ca.tweetzy.vouchers.impl.VoucherRedeem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedeemArchiveTest {
+
+	@TempDir
+	File folder;
+
+	@Test
+	void appendsAreReadBackAsOneStream() throws IOException {
+		final RedeemArchive archive = new RedeemArchive(this.folder);
+		final long time = millis(2022, 3, 14);
+
+		final Redeem first = new VoucherRedeem(UUID.randomUUID(), UUID.randomUUID(), "Money", time);
+		final Redeem second = new VoucherRedeem(UUID.randomUUID(), UUID.randomUUID(), "crate", time + 1);
+
+		archive.append(List.of(first));
+		archive.append(List.of(second));
+
+		final List<String> lines = read(new File(this.folder, "redeems-2022-03.csv.gz"));
+		assertEquals(List.of(line(first), line(second)), lines);
+	}
+
+	@Test
+	void redeemsAreSplitByMonth() throws IOException {
+		final RedeemArchive archive = new RedeemArchive(this.folder);
+
+		final Redeem march = new VoucherRedeem(UUID.randomUUID(), UUID.randomUUID(), "money", millis(2022, 3, 31));
+		final Redeem april = new VoucherRedeem(UUID.randomUUID(), UUID.randomUUID(), "money", millis(2022, 4, 1));
+
+		archive.append(List.of(march, april));
+
+		assertEquals(List.of(line(march)), read(new File(this.folder, "redeems-2022-03.csv.gz")));
+		assertEquals(List.of(line(april)), read(new File(this.folder, "redeems-2022-04.csv.gz")));
+	}
+
+	@Test
+	void emptyAppendCreatesNothing() throws IOException {
+		final File nested = new File(this.folder, "archive");
+		new RedeemArchive(nested).append(List.of());
+
+		assertFalse(nested.exists());
+	}
+
+	private static long millis(final int year, final int month, final int day) {
+		return LocalDate.of(year, month, day).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+	}
+
+	private static String line(final Redeem redeem) {
+		return redeem.getId() + "," + redeem.getUser() + "," + redeem.getVoucherId() + "," + redeem.getTime();
+	}
+
+	private static List<String> read(final File file) throws IOException {
+		final List<String> lines = new ArrayList<>();
+
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(file)), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null)
+				lines.add(line);
+		}
+
+		return lines;
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * Vouchers
+ * Copyright 2022 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.vouchers.model.manager;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CooldownManagerTest {
+
+	@Test
+	void expiredCooldownsAreIgnored() {
+		final CooldownManager manager = new CooldownManager();
+		final UUID player = UUID.randomUUID();
+
+		manager.addCooldown(player, "starter", System.currentTimeMillis() - 1);
+
+		assertEquals(0L, manager.remainingMillis(player, "starter"));
+		assertTrue(manager.snapshot().isEmpty());
+	}
+
+	@Test
+	void cooldownsIgnoreVoucherIdCase() {
+		final CooldownManager manager = new CooldownManager();
+		final UUID player = UUID.randomUUID();
+
+		manager.addCooldown(player, "Starter", System.currentTimeMillis() + 60_000L);
+
+		assertTrue(manager.remainingMillis(player, "STARTER") > 0);
+	}
+
+	@Test
+	void tickDropsOnlyWhatRanOut() throws InterruptedException {
+		final CooldownManager manager = new CooldownManager();
+		final UUID player = UUID.randomUUID();
+		final long now = System.currentTimeMillis();
+
+		manager.addCooldown(player, "short", now + 200L);
+		manager.addCooldown(player, "long", now + 60_000L);
+
+		// extended before the first one ran out, the old wheel entry must not remove it
+		manager.addCooldown(player, "extended", now + 200L);
+		manager.addCooldown(player, "extended", now + 60_000L);
+
+		Thread.sleep(300L);
+		manager.tick();
+
+		assertEquals(0L, manager.remainingMillis(player, "short"));
+		assertTrue(manager.remainingMillis(player, "long") > 0);
+		assertTrue(manager.remainingMillis(player, "extended") > 0);
+		assertEquals(2, manager.snapshot().get(player).size());
+	}
+
+	@Test
+	void cooldownEndingMidSecondIsDroppedByTheNextSecondsTick() {
+		final CooldownManager manager = new CooldownManager();
+		final UUID player = UUID.randomUUID();
+
+		// a whole second well ahead of now, so the ticks below are in order with the wheel
+		final long second = (System.currentTimeMillis() / 1000L + 10) * 1000L;
+		manager.addCooldown(player, "mid", second + 500L);
+
+		manager.tick(second + 200L);
+		manager.tick(second + 700L);
+		assertEquals(1, manager.heldCount());
+
+		manager.tick(second + 1200L);
+		assertEquals(0, manager.heldCount());
+	}
+
+	@Test
+	void cooldownsAWholeTurnAwayStayOnTheWheel() {
+		final CooldownManager manager = new CooldownManager();
+		final UUID player = UUID.randomUUID();
+
+		final long second = (System.currentTimeMillis() / 1000L + 10) * 1000L;
+		manager.addCooldown(player, "near", second + 500L);
+		manager.addCooldown(player, "far", second + 500L + 512_000L);
+
+		manager.tick(second + 1200L);
+		assertEquals(1, manager.heldCount());
+		assertTrue(manager.remainingMillis(player, "far") > 0);
+	}
+}
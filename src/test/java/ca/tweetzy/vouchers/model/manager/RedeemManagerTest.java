@@ -0,0 +1,105 @@
+/*
+ * Vouchers
+ * Copyright 2022 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.vouchers.model.manager;
+
+import ca.tweetzy.vouchers.impl.VoucherRedeem;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedeemManagerTest {
+
+	@Test
+	void countsIgnoreVoucherIdCase() {
+		final RedeemManager manager = new RedeemManager();
+		final UUID player = UUID.randomUUID();
+
+		manager.add(new VoucherRedeem(UUID.randomUUID(), player, "Starter", System.currentTimeMillis()));
+		manager.add(new VoucherRedeem(UUID.randomUUID(), player, "starter", System.currentTimeMillis()));
+
+		assertEquals(2, manager.getTotalRedeems(player, "starter"));
+		assertEquals(2, manager.getTotalRedeems(player, "STARTER"));
+	}
+
+	@Test
+	void countsArePerPlayer() {
+		final RedeemManager manager = new RedeemManager();
+		final UUID player = UUID.randomUUID();
+
+		manager.add(new VoucherRedeem(UUID.randomUUID(), player, "starter", System.currentTimeMillis()));
+
+		assertEquals(0, manager.getTotalRedeems(UUID.randomUUID(), "starter"));
+		assertEquals(0, manager.getTotalRedeems(player, "other"));
+	}
+
+	@Test
+	void reserveStopsAtTheLimit() {
+		final RedeemManager manager = new RedeemManager();
+		final UUID player = UUID.randomUUID();
+
+		assertTrue(manager.tryReserve(player, "starter", 2));
+		assertTrue(manager.tryReserve(player, "Starter", 2));
+		assertFalse(manager.tryReserve(player, "starter", 2));
+
+		manager.releaseReservation(player, "starter");
+		assertEquals(1, manager.getTotalRedeems(player, "starter"));
+		assertTrue(manager.tryReserve(player, "starter", 2));
+	}
+
+	@Test
+	void concurrentReservationsNeverPassTheLimit() throws InterruptedException {
+		final RedeemManager manager = new RedeemManager();
+		final UUID player = UUID.randomUUID();
+		final int limit = 100;
+		final int threads = 8;
+
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		final CountDownLatch start = new CountDownLatch(1);
+		final AtomicInteger granted = new AtomicInteger();
+
+		for (int thread = 0; thread < threads; thread++) {
+			executor.execute(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+
+				for (int attempt = 0; attempt < 50; attempt++) {
+					if (manager.tryReserve(player, "starter", limit))
+						granted.incrementAndGet();
+				}
+			});
+		}
+
+		start.countDown();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+		assertEquals(limit, granted.get());
+		assertEquals(limit, manager.getTotalRedeems(player, "starter"));
+	}
+}
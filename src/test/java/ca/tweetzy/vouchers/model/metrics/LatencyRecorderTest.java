@@ -0,0 +1,95 @@
+/*
+ * Vouchers
+ * Copyright 2022 Kiran Hart
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ca.tweetzy.vouchers.model.metrics;
+
+import ca.tweetzy.vouchers.api.metrics.RedeemMetricsSnapshot;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyRecorderTest {
+
+	@Test
+	void emptyRecorderReportsZeros() {
+		assertEquals(new RedeemMetricsSnapshot.Timing(0, 0, 0, 0, 0, 0), new LatencyRecorder().snapshot());
+	}
+
+	@Test
+	void smallValuesAreExact() {
+		final LatencyRecorder recorder = new LatencyRecorder();
+		for (int i = 0; i < 5; i++)
+			recorder.record(i);
+
+		final RedeemMetricsSnapshot.Timing timing = recorder.snapshot();
+		assertEquals(5, timing.count());
+		assertEquals(2, timing.mean());
+		assertEquals(2, timing.p50());
+		assertEquals(4, timing.p99());
+		assertEquals(4, timing.max());
+	}
+
+	@Test
+	void percentilesStayWithinTheBucketError() {
+		final LatencyRecorder recorder = new LatencyRecorder();
+		for (long i = 1; i <= 10_000; i++)
+			recorder.record(i * 1_000);
+
+		final RedeemMetricsSnapshot.Timing timing = recorder.snapshot();
+		assertEquals(10_000, timing.count());
+		assertEquals(10_000_000, timing.max());
+		assertWithin(5_000_000, timing.p50());
+		assertWithin(9_500_000, timing.p95());
+		assertWithin(9_900_000, timing.p99());
+	}
+
+	@Test
+	void negativeValuesCountAsZero() {
+		final LatencyRecorder recorder = new LatencyRecorder();
+		recorder.record(-50);
+
+		final RedeemMetricsSnapshot.Timing timing = recorder.snapshot();
+		assertEquals(1, timing.count());
+		assertEquals(0, timing.p50());
+		assertEquals(0, timing.max());
+	}
+
+	@Test
+	void concurrentRecordsAreAllCounted() throws InterruptedException {
+		final LatencyRecorder recorder = new LatencyRecorder();
+		final Thread[] threads = new Thread[8];
+
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread(() -> {
+				for (int j = 0; j < 10_000; j++)
+					recorder.record(j);
+			});
+			threads[i].start();
+		}
+
+		for (Thread thread : threads)
+			thread.join();
+
+		assertEquals(80_000, recorder.snapshot().count());
+	}
+
+	private static void assertWithin(final long expected, final long actual) {
+		assertTrue(Math.abs(actual - expected) <= expected / 8, "expected about " + expected + " but was " + actual);
+	}
+}